@@ -0,0 +1,251 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache partitioned by the classloader that owns each value. Each partition
+ * is a TimedLRUCache bounded to maxSizePerClassLoader entries, and all the
+ * entries of a classloader can be removed at once when it is undeployed so
+ * the cache doesn't keep it alive.
+ *
+ * @author Jorge Díaz
+ */
+public class ClassLoaderCache<K, V> {
+
+	public ClassLoaderCache(int maxSizePerClassLoader, long timeToLive) {
+		if (maxSizePerClassLoader <= 0) {
+			throw new IllegalArgumentException(
+				"maxSizePerClassLoader must be greater than zero");
+		}
+
+		this.maxSizePerClassLoader = maxSizePerClassLoader;
+		this.timeToLive = timeToLive;
+	}
+
+	public void clear() {
+		partitions.clear();
+		keyPartitions.clear();
+	}
+
+	public V get(K key) {
+		Object partitionKey = keyPartitions.get(key);
+
+		TimedLRUCache<K, V> partition = null;
+
+		if (partitionKey != null) {
+			partition = partitions.get(partitionKey);
+		}
+
+		V value = null;
+
+		if (partition != null) {
+			value = partition.get(key);
+		}
+
+		if (value == null) {
+			missCount.incrementAndGet();
+		}
+		else {
+			hitCount.incrementAndGet();
+		}
+
+		return value;
+	}
+
+	public List<ClassLoader> getClassLoaders() {
+		List<ClassLoader> classLoaders = new ArrayList<ClassLoader>();
+
+		for (Object partitionKey : partitions.keySet()) {
+			if (partitionKey instanceof ClassLoader) {
+				classLoaders.add((ClassLoader)partitionKey);
+			}
+			else {
+				classLoaders.add(null);
+			}
+		}
+
+		return classLoaders;
+	}
+
+	public long getClassLoaderEvictionCount() {
+		return classLoaderEvictionCount.get();
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public int getMaxSizePerClassLoader() {
+		return maxSizePerClassLoader;
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	public V put(K key, ClassLoader classLoader, V value) {
+		Object partitionKey = getPartitionKey(classLoader);
+
+		Object previousPartitionKey = keyPartitions.put(key, partitionKey);
+
+		if ((previousPartitionKey != null) &&
+			(previousPartitionKey != partitionKey)) {
+
+			TimedLRUCache<K, V> previousPartition = partitions.get(
+				previousPartitionKey);
+
+			if (previousPartition != null) {
+				previousPartition.remove(key);
+			}
+		}
+
+		return getPartition(partitionKey).put(key, value);
+	}
+
+	public V remove(K key) {
+		Object partitionKey = keyPartitions.remove(key);
+
+		if (partitionKey == null) {
+			return null;
+		}
+
+		TimedLRUCache<K, V> partition = partitions.get(partitionKey);
+
+		if (partition == null) {
+			return null;
+		}
+
+		return partition.remove(key);
+	}
+
+	/**
+	 * Removes all the entries owned by the classloader and returns how many
+	 * were removed
+	 */
+	public int removeClassLoader(ClassLoader classLoader) {
+		Object partitionKey = getPartitionKey(classLoader);
+
+		TimedLRUCache<K, V> partition = partitions.remove(partitionKey);
+
+		Iterator<Map.Entry<K, Object>> iterator =
+			keyPartitions.entrySet().iterator();
+
+		while (iterator.hasNext()) {
+			if (iterator.next().getValue() == partitionKey) {
+				iterator.remove();
+			}
+		}
+
+		if (partition == null) {
+			return 0;
+		}
+
+		classLoaderEvictionCount.incrementAndGet();
+
+		return partition.size();
+	}
+
+	public int size() {
+		int size = 0;
+
+		for (TimedLRUCache<K, V> partition : partitions.values()) {
+			size = size + partition.size();
+		}
+
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return "{classLoaders=" + partitions.size() + ", size=" + size() +
+			", maxSizePerClassLoader=" + maxSizePerClassLoader + ", hits=" +
+				hitCount + ", misses=" + missCount +
+					", classLoaderEvictions=" + classLoaderEvictionCount + "}";
+	}
+
+	/**
+	 * Values owned by the classloader
+	 */
+	public List<V> values(ClassLoader classLoader) {
+		TimedLRUCache<K, V> partition = partitions.get(
+			getPartitionKey(classLoader));
+
+		if (partition == null) {
+			return Collections.emptyList();
+		}
+
+		return partition.values();
+	}
+
+	protected TimedLRUCache<K, V> getPartition(final Object partitionKey) {
+		TimedLRUCache<K, V> partition = partitions.get(partitionKey);
+
+		if (partition != null) {
+			return partition;
+		}
+
+		partition = new TimedLRUCache<K, V>(
+			maxSizePerClassLoader, timeToLive) {
+
+			@Override
+			protected void entryRemoved(K key, V value) {
+				keyPartitions.remove(key, partitionKey);
+			}
+
+		};
+
+		TimedLRUCache<K, V> previousPartition = partitions.putIfAbsent(
+			partitionKey, partition);
+
+		if (previousPartition != null) {
+			return previousPartition;
+		}
+
+		return partition;
+	}
+
+	protected Object getPartitionKey(ClassLoader classLoader) {
+		if (classLoader == null) {
+			return NULL_CLASS_LOADER;
+		}
+
+		return classLoader;
+	}
+
+	private static final Object NULL_CLASS_LOADER = new Object();
+
+	private final AtomicLong classLoaderEvictionCount = new AtomicLong();
+	private final AtomicLong hitCount = new AtomicLong();
+	private final ConcurrentHashMap<K, Object> keyPartitions =
+		new ConcurrentHashMap<K, Object>();
+	private final int maxSizePerClassLoader;
+	private final AtomicLong missCount = new AtomicLong();
+	private final ConcurrentHashMap<Object, TimedLRUCache<K, V>> partitions =
+		new ConcurrentHashMap<Object, TimedLRUCache<K, V>>();
+	private final long timeToLive;
+
+}
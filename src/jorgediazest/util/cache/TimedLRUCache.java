@@ -0,0 +1,303 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe cache bounded to maxSize entries, evicting the least recently
+ * used ones, whose entries expire timeToLive milliseconds after being added.
+ * A timeToLive of zero or less means entries never expire.
+ *
+ * @author Jorge Díaz
+ */
+public class TimedLRUCache<K, V> {
+
+	public TimedLRUCache(int maxSize, long timeToLive) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException(
+				"maxSize must be greater than zero");
+		}
+
+		this.maxSize = maxSize;
+		this.timeToLive = timeToLive;
+
+		map = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75F, true) {
+
+			@Override
+			protected boolean removeEldestEntry(
+				Map.Entry<K, CacheEntry<V>> eldest) {
+
+				if (size() > TimedLRUCache.this.maxSize) {
+					evictionCount.incrementAndGet();
+
+					entryRemoved(eldest.getKey(), eldest.getValue().value);
+
+					return true;
+				}
+
+				return false;
+			}
+
+		};
+	}
+
+	public synchronized void clear() {
+		map.clear();
+
+		generation++;
+	}
+
+	public synchronized boolean containsKey(K key) {
+		CacheEntry<V> entry = map.get(key);
+
+		if (entry == null) {
+			return false;
+		}
+
+		if (entry.isExpired(System.currentTimeMillis())) {
+			map.remove(key);
+
+			expirationCount.incrementAndGet();
+
+			entryRemoved(key, entry.value);
+
+			return false;
+		}
+
+		return true;
+	}
+
+	public V get(K key) {
+		V value = null;
+
+		synchronized (this) {
+			CacheEntry<V> entry = map.get(key);
+
+			if ((entry != null) &&
+				entry.isExpired(System.currentTimeMillis())) {
+
+				map.remove(key);
+
+				expirationCount.incrementAndGet();
+
+				entryRemoved(key, entry.value);
+
+				entry = null;
+			}
+
+			if (entry != null) {
+				value = entry.value;
+			}
+		}
+
+		if (value == null) {
+			missCount.incrementAndGet();
+		}
+		else {
+			hitCount.incrementAndGet();
+		}
+
+		return value;
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	public long getExpirationCount() {
+		return expirationCount.get();
+	}
+
+	/**
+	 * Returns a counter that changes every time the cache is cleared or an
+	 * entry is removed. See put(Object, Object, long).
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns hits / (hits + misses), or zero if the cache was never queried
+	 */
+	public double getHitRatio() {
+		long hits = hitCount.get();
+
+		long total = hits + missCount.get();
+
+		if (total == 0) {
+			return 0;
+		}
+
+		return (double)hits / total;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	public V put(K key, V value) {
+		if (value == null) {
+			throw new NullPointerException("value cannot be null");
+		}
+
+		long expirationTime = getExpirationTime();
+
+		CacheEntry<V> previousEntry;
+
+		synchronized (this) {
+			previousEntry = map.put(
+				key, new CacheEntry<V>(value, expirationTime));
+		}
+
+		if (previousEntry == null) {
+			return null;
+		}
+
+		return previousEntry.value;
+	}
+
+	/**
+	 * Adds the value only if getGeneration() still returns generation, so a
+	 * value read before the cache was cleared or the key was removed is not
+	 * stored after it. Returns true if the value was added.
+	 */
+	public boolean put(K key, V value, long generation) {
+		if (value == null) {
+			throw new NullPointerException("value cannot be null");
+		}
+
+		long expirationTime = getExpirationTime();
+
+		synchronized (this) {
+			if (this.generation != generation) {
+				return false;
+			}
+
+			map.put(key, new CacheEntry<V>(value, expirationTime));
+		}
+
+		return true;
+	}
+
+	public V remove(K key) {
+		CacheEntry<V> entry;
+
+		synchronized (this) {
+			entry = map.remove(key);
+
+			generation++;
+		}
+
+		if (entry == null) {
+			return null;
+		}
+
+		return entry.value;
+	}
+
+	public void resetStatistics() {
+		evictionCount.set(0);
+		expirationCount.set(0);
+		hitCount.set(0);
+		missCount.set(0);
+	}
+
+	public synchronized int size() {
+		return map.size();
+	}
+
+	@Override
+	public String toString() {
+		return "{size=" + size() + ", maxSize=" + maxSize + ", timeToLive=" +
+			timeToLive + ", hits=" + hitCount + ", misses=" + missCount +
+				", evictions=" + evictionCount + ", expirations=" +
+					expirationCount + "}";
+	}
+
+	/**
+	 * Returns the values that are not expired, from the least to the most
+	 * recently used
+	 */
+	public synchronized List<V> values() {
+		List<V> values = new ArrayList<V>(map.size());
+
+		long now = System.currentTimeMillis();
+
+		for (CacheEntry<V> entry : map.values()) {
+			if (!entry.isExpired(now)) {
+				values.add(entry.value);
+			}
+		}
+
+		return values;
+	}
+
+	protected static class CacheEntry<V> {
+
+		public CacheEntry(V value, long expirationTime) {
+			this.value = value;
+			this.expirationTime = expirationTime;
+		}
+
+		public boolean isExpired(long now) {
+			return (now >= expirationTime);
+		}
+
+		protected final long expirationTime;
+		protected final V value;
+
+	}
+
+	/**
+	 * Called, holding the cache lock, when an entry is evicted or expires
+	 */
+	protected void entryRemoved(K key, V value) {
+	}
+
+	protected long getExpirationTime() {
+		if (timeToLive > 0) {
+			return System.currentTimeMillis() + timeToLive;
+		}
+
+		return Long.MAX_VALUE;
+	}
+
+	protected final AtomicLong evictionCount = new AtomicLong();
+	protected final AtomicLong expirationCount = new AtomicLong();
+	protected long generation;
+	protected final AtomicLong hitCount = new AtomicLong();
+	protected final Map<K, CacheEntry<V>> map;
+	protected final int maxSize;
+	protected final AtomicLong missCount = new AtomicLong();
+	protected final long timeToLive;
+
+}
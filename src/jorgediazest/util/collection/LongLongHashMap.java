@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.collection;
+
+import java.util.Arrays;
+
+/**
+ * Hash map with primitive long keys and values, using open addressing with
+ * linear probing. It is not thread safe.
+ *
+ * @author Jorge Díaz
+ */
+public class LongLongHashMap {
+
+	public LongLongHashMap() {
+		this(16);
+	}
+
+	public LongLongHashMap(int expectedSize) {
+		int capacity = 16;
+
+		while ((capacity * LOAD_FACTOR) < expectedSize) {
+			capacity = capacity << 1;
+		}
+
+		allocate(capacity);
+	}
+
+	/**
+	 * Adds delta to the value of the key, that is zero if it is not present,
+	 * and returns the new value
+	 */
+	public long add(long key, long delta) {
+		int pos = indexOf(key);
+
+		if (pos >= 0) {
+			values[pos] = values[pos] + delta;
+
+			return values[pos];
+		}
+
+		insert(-pos - 1, key, delta);
+
+		return delta;
+	}
+
+	public boolean containsKey(long key) {
+		return (indexOf(key) >= 0);
+	}
+
+	public long get(long key) {
+		return get(key, 0);
+	}
+
+	public long get(long key, long defaultValue) {
+		int pos = indexOf(key);
+
+		if (pos < 0) {
+			return defaultValue;
+		}
+
+		return values[pos];
+	}
+
+	public boolean isEmpty() {
+		return (size == 0);
+	}
+
+	public long[] keys() {
+		long[] result = new long[size];
+
+		int i = 0;
+
+		for (int pos = 0; pos < used.length; pos++) {
+			if (used[pos]) {
+				result[i++] = keys[pos];
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Sets the value of the key and returns the previous one, or zero if the
+	 * key was not present
+	 */
+	public long put(long key, long value) {
+		int pos = indexOf(key);
+
+		if (pos >= 0) {
+			long previousValue = values[pos];
+
+			values[pos] = value;
+
+			return previousValue;
+		}
+
+		insert(-pos - 1, key, value);
+
+		return 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		long[] sortedKeys = keys();
+
+		Arrays.sort(sortedKeys);
+
+		StringBuilder sb = new StringBuilder(size * 16);
+
+		sb.append('{');
+
+		for (int i = 0; i < sortedKeys.length; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+
+			sb.append(sortedKeys[i]);
+			sb.append('=');
+			sb.append(get(sortedKeys[i]));
+		}
+
+		sb.append('}');
+
+		return sb.toString();
+	}
+
+	protected void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new long[capacity];
+		used = new boolean[capacity];
+		mask = capacity - 1;
+		threshold = (int)(capacity * LOAD_FACTOR);
+	}
+
+	protected int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+
+		return (int)(h ^ (h >>> 32)) & mask;
+	}
+
+	/**
+	 * Returns the position of the key, or (-insertionPoint - 1) if the key is
+	 * not present
+	 */
+	protected int indexOf(long key) {
+		int pos = hash(key);
+
+		while (used[pos]) {
+			if (keys[pos] == key) {
+				return pos;
+			}
+
+			pos = (pos + 1) & mask;
+		}
+
+		return -pos - 1;
+	}
+
+	protected void insert(int pos, long key, long value) {
+		if (size >= threshold) {
+			rehash(keys.length << 1);
+
+			pos = -indexOf(key) - 1;
+		}
+
+		keys[pos] = key;
+		values[pos] = value;
+		used[pos] = true;
+
+		size++;
+	}
+
+	protected void rehash(int capacity) {
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		boolean[] oldUsed = used;
+
+		allocate(capacity);
+
+		for (int i = 0; i < oldUsed.length; i++) {
+			if (oldUsed[i]) {
+				int pos = -indexOf(oldKeys[i]) - 1;
+
+				keys[pos] = oldKeys[i];
+				values[pos] = oldValues[i];
+				used[pos] = true;
+			}
+		}
+	}
+
+	private static final float LOAD_FACTOR = 0.75F;
+
+	private long[] keys;
+	private int mask;
+	private int size = 0;
+	private int threshold;
+	private boolean[] used;
+	private long[] values;
+
+}
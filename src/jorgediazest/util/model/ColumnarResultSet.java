@@ -0,0 +1,613 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a projection query stored by columns. Numeric, boolean and date
+ * values are decoded into primitive arrays, dates as epoch milliseconds, and
+ * strings are dictionary encoded, so each distinct string is stored once and
+ * rows only keep an int code. Null values are tracked by a bitset per column.
+ *
+ * The type of each column is chosen from the class of its attribute, see
+ * getColumnType(Class). The typed getters throw IllegalStateException if the
+ * column has another type. The arrays returned by the column getters are
+ * shared once trimToSize has been called, and must not be modified.
+ *
+ * @author Jorge Díaz
+ */
+public class ColumnarResultSet {
+
+	public static final int TYPE_BOOLEAN = 1;
+
+	public static final int TYPE_DATE = 2;
+
+	public static final int TYPE_DOUBLE = 3;
+
+	public static final int TYPE_INT = 4;
+
+	public static final int TYPE_LONG = 5;
+
+	public static final int TYPE_OBJECT = 6;
+
+	public static final int TYPE_STRING = 7;
+
+	public static int getColumnType(Class<?> clazz) {
+		if ((clazz == Long.class) || (clazz == long.class) ||
+			(clazz == BigInteger.class)) {
+
+			return TYPE_LONG;
+		}
+
+		if ((clazz == Integer.class) || (clazz == int.class) ||
+			(clazz == Short.class) || (clazz == short.class) ||
+			(clazz == Byte.class) || (clazz == byte.class)) {
+
+			return TYPE_INT;
+		}
+
+		if ((clazz == Double.class) || (clazz == double.class) ||
+			(clazz == Float.class) || (clazz == float.class) ||
+			(clazz == BigDecimal.class)) {
+
+			return TYPE_DOUBLE;
+		}
+
+		if ((clazz == Boolean.class) || (clazz == boolean.class)) {
+			return TYPE_BOOLEAN;
+		}
+
+		if ((clazz != null) && Date.class.isAssignableFrom(clazz)) {
+			return TYPE_DATE;
+		}
+
+		if (clazz == String.class) {
+			return TYPE_STRING;
+		}
+
+		return TYPE_OBJECT;
+	}
+
+	public ColumnarResultSet(String[] attributes, Class<?>[] columnClasses) {
+		if (attributes.length != columnClasses.length) {
+			throw new IllegalArgumentException(
+				"attributes and columnClasses must have the same length");
+		}
+
+		this.attributes = attributes;
+
+		columns = new Column[attributes.length];
+
+		for (int i = 0; i < attributes.length; i++) {
+			columns[i] = new Column(getColumnType(columnClasses[i]));
+		}
+	}
+
+	/**
+	 * Adds a row of a projection query, an Object[] with a value for each
+	 * column, or the value itself if there is only one column
+	 */
+	public void addRow(Object row) {
+		if (row instanceof Object[]) {
+			addRow((Object[])row, 0);
+
+			return;
+		}
+
+		if (columns.length != 1) {
+			throw new IllegalArgumentException(
+				"Row is not an array of " + columns.length + " values");
+		}
+
+		columns[0].add(row);
+
+		size++;
+	}
+
+	/**
+	 * Adds a row whose values start at offset, for example after the key
+	 * columns of a keyset query row
+	 */
+	public void addRow(Object[] values, int offset) {
+		if ((values.length - offset) < columns.length) {
+			throw new IllegalArgumentException(
+				"Row has " + (values.length - offset) + " values, expected " +
+					columns.length);
+		}
+
+		for (int i = 0; i < columns.length; i++) {
+			columns[i].add(values[offset + i]);
+		}
+
+		size++;
+	}
+
+	public String[] getAttributes() {
+		return attributes;
+	}
+
+	public boolean getBoolean(int column, int row) {
+		Column col = getColumn(column, TYPE_BOOLEAN);
+
+		return col.booleans[checkRow(row)];
+	}
+
+	public boolean[] getBooleanColumn(int column) {
+		Column col = getColumn(column, TYPE_BOOLEAN);
+
+		return getValues(col.booleans);
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	/**
+	 * Position of the attribute in the columns, or -1 if it was not projected
+	 */
+	public int getColumnIndex(String attribute) {
+		for (int i = 0; i < attributes.length; i++) {
+			if (attributes[i].equals(attribute)) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	public int getColumnType(int column) {
+		return columns[column].type;
+	}
+
+	public double getDouble(int column, int row) {
+		Column col = getColumn(column, TYPE_DOUBLE);
+
+		return col.doubles[checkRow(row)];
+	}
+
+	public double[] getDoubleColumn(int column) {
+		Column col = getColumn(column, TYPE_DOUBLE);
+
+		return getValues(col.doubles);
+	}
+
+	/**
+	 * Rough estimation, in bytes, of the memory used by the stored values
+	 */
+	public long getEstimatedMemoryFootprint() {
+		long footprint = 0;
+
+		for (Column column : columns) {
+			footprint += column.getEstimatedMemoryFootprint();
+		}
+
+		return footprint;
+	}
+
+	public int getInt(int column, int row) {
+		Column col = getColumn(column, TYPE_INT);
+
+		return col.ints[checkRow(row)];
+	}
+
+	public int[] getIntColumn(int column) {
+		Column col = getColumn(column, TYPE_INT);
+
+		return getValues(col.ints);
+	}
+
+	/**
+	 * Value of a long column, or epoch milliseconds of a date column
+	 */
+	public long getLong(int column, int row) {
+		Column col = getLongColumnObject(column);
+
+		return col.longs[checkRow(row)];
+	}
+
+	/**
+	 * Values of a long column, or epoch milliseconds of a date column
+	 */
+	public long[] getLongColumn(int column) {
+		Column col = getLongColumnObject(column);
+
+		return getValues(col.longs);
+	}
+
+	public String getString(int column, int row) {
+		Column col = getColumn(column, TYPE_STRING);
+
+		checkRow(row);
+
+		if (col.nulls.get(row)) {
+			return null;
+		}
+
+		return col.dictionary.get(col.ints[row]);
+	}
+
+	/**
+	 * Dictionary codes of a string column, see getStringDictionary. Null
+	 * values have the code -1.
+	 */
+	public int[] getStringCodes(int column) {
+		Column col = getColumn(column, TYPE_STRING);
+
+		return getValues(col.ints);
+	}
+
+	/**
+	 * Distinct strings of a string column, indexed by their code
+	 */
+	public String[] getStringDictionary(int column) {
+		Column col = getColumn(column, TYPE_STRING);
+
+		return col.dictionary.toArray(new String[col.dictionary.size()]);
+	}
+
+	/**
+	 * Value of the column boxed as its original type, dates are returned as
+	 * java.util.Date
+	 */
+	public Object getValue(int column, int row) {
+		Column col = columns[column];
+
+		checkRow(row);
+
+		if (col.nulls.get(row)) {
+			return null;
+		}
+
+		switch (col.type) {
+			case TYPE_BOOLEAN:
+				return col.booleans[row];
+
+			case TYPE_DATE:
+				return new Date(col.longs[row]);
+
+			case TYPE_DOUBLE:
+				return col.doubles[row];
+
+			case TYPE_INT:
+				return col.ints[row];
+
+			case TYPE_LONG:
+				return col.longs[row];
+
+			case TYPE_STRING:
+				return col.dictionary.get(col.ints[row]);
+
+			default:
+				return col.objects[row];
+		}
+	}
+
+	public boolean isNull(int column, int row) {
+		return columns[column].nulls.get(checkRow(row));
+	}
+
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return "{attributes=" + Arrays.toString(attributes) + ", size=" +
+			size + "}";
+	}
+
+	/**
+	 * Releases the unused capacity of the columns
+	 */
+	public void trimToSize() {
+		for (Column column : columns) {
+			column.resize(size);
+		}
+	}
+
+	protected int checkRow(int row) {
+		if ((row < 0) || (row >= size)) {
+			throw new IndexOutOfBoundsException(
+				"Row " + row + ", size " + size);
+		}
+
+		return row;
+	}
+
+	protected Column getColumn(int column, int type) {
+		Column col = columns[column];
+
+		if (col.type != type) {
+			throw new IllegalStateException(
+				attributes[column] + " is not a column of type " + type);
+		}
+
+		return col;
+	}
+
+	protected Column getLongColumnObject(int column) {
+		Column col = columns[column];
+
+		if ((col.type != TYPE_LONG) && (col.type != TYPE_DATE)) {
+			throw new IllegalStateException(
+				attributes[column] + " is not a long or date column");
+		}
+
+		return col;
+	}
+
+	protected boolean[] getValues(boolean[] values) {
+		if (values.length == size) {
+			return values;
+		}
+
+		return Arrays.copyOf(values, size);
+	}
+
+	protected double[] getValues(double[] values) {
+		if (values.length == size) {
+			return values;
+		}
+
+		return Arrays.copyOf(values, size);
+	}
+
+	protected int[] getValues(int[] values) {
+		if (values.length == size) {
+			return values;
+		}
+
+		return Arrays.copyOf(values, size);
+	}
+
+	protected long[] getValues(long[] values) {
+		if (values.length == size) {
+			return values;
+		}
+
+		return Arrays.copyOf(values, size);
+	}
+
+	protected static class Column {
+
+		protected Column(int type) {
+			this.type = type;
+
+			switch (type) {
+				case TYPE_BOOLEAN:
+					booleans = new boolean[INITIAL_CAPACITY];
+					break;
+
+				case TYPE_DATE:
+				case TYPE_LONG:
+					longs = new long[INITIAL_CAPACITY];
+					break;
+
+				case TYPE_DOUBLE:
+					doubles = new double[INITIAL_CAPACITY];
+					break;
+
+				case TYPE_INT:
+					ints = new int[INITIAL_CAPACITY];
+					break;
+
+				case TYPE_STRING:
+					ints = new int[INITIAL_CAPACITY];
+					dictionary = new ArrayList<String>();
+					dictionaryIndex = new HashMap<String, Integer>();
+					break;
+
+				default:
+					objects = new Object[INITIAL_CAPACITY];
+			}
+		}
+
+		protected void add(Object value) {
+			ensureCapacity(size + 1);
+
+			if (value == null) {
+				nulls.set(size);
+
+				if (type == TYPE_STRING) {
+					ints[size] = -1;
+				}
+
+				size++;
+
+				return;
+			}
+
+			switch (type) {
+				case TYPE_BOOLEAN:
+					if (value instanceof Number) {
+						booleans[size] = (((Number)value).intValue() != 0);
+					}
+					else {
+						booleans[size] = (Boolean)value;
+					}
+
+					break;
+
+				case TYPE_DATE:
+					if (value instanceof Date) {
+						longs[size] = ((Date)value).getTime();
+					}
+					else {
+						longs[size] = toNumber(value).longValue();
+					}
+
+					break;
+
+				case TYPE_DOUBLE:
+					doubles[size] = toNumber(value).doubleValue();
+					break;
+
+				case TYPE_INT:
+					ints[size] = toNumber(value).intValue();
+					break;
+
+				case TYPE_LONG:
+					longs[size] = toNumber(value).longValue();
+					break;
+
+				case TYPE_STRING:
+					ints[size] = getDictionaryCode(value.toString());
+					break;
+
+				default:
+					objects[size] = value;
+			}
+
+			size++;
+		}
+
+		protected void ensureCapacity(int capacity) {
+			int length = getCapacity();
+
+			if (capacity <= length) {
+				return;
+			}
+
+			int newLength = Math.max(capacity, length + (length >> 1));
+
+			resize(newLength);
+		}
+
+		protected int getCapacity() {
+			if (booleans != null) {
+				return booleans.length;
+			}
+
+			if (doubles != null) {
+				return doubles.length;
+			}
+
+			if (ints != null) {
+				return ints.length;
+			}
+
+			if (longs != null) {
+				return longs.length;
+			}
+
+			return objects.length;
+		}
+
+		protected int getDictionaryCode(String value) {
+			Integer code = dictionaryIndex.get(value);
+
+			if (code == null) {
+				code = dictionary.size();
+
+				dictionary.add(value);
+				dictionaryIndex.put(value, code);
+			}
+
+			return code;
+		}
+
+		protected long getEstimatedMemoryFootprint() {
+			long footprint = (nulls.size() / 8);
+
+			switch (type) {
+				case TYPE_BOOLEAN:
+					return footprint + booleans.length;
+
+				case TYPE_DATE:
+				case TYPE_LONG:
+					return footprint + (8L * longs.length);
+
+				case TYPE_DOUBLE:
+					return footprint + (8L * doubles.length);
+
+				case TYPE_INT:
+					return footprint + (4L * ints.length);
+
+				case TYPE_STRING:
+					footprint += 4L * ints.length;
+
+					for (String value : dictionary) {
+						footprint += 64 + (2L * value.length());
+					}
+
+					return footprint;
+
+				default:
+					return footprint + (16L * objects.length);
+			}
+		}
+
+		protected void resize(int length) {
+			if (booleans != null) {
+				booleans = Arrays.copyOf(booleans, length);
+			}
+
+			if (doubles != null) {
+				doubles = Arrays.copyOf(doubles, length);
+			}
+
+			if (ints != null) {
+				ints = Arrays.copyOf(ints, length);
+			}
+
+			if (longs != null) {
+				longs = Arrays.copyOf(longs, length);
+			}
+
+			if (objects != null) {
+				objects = Arrays.copyOf(objects, length);
+			}
+		}
+
+		protected Number toNumber(Object value) {
+			if (value instanceof Number) {
+				return (Number)value;
+			}
+
+			throw new IllegalArgumentException(
+				"Value " + value + " of class " + value.getClass() +
+					" is not a number");
+		}
+
+		protected static final int INITIAL_CAPACITY = 16;
+
+		protected boolean[] booleans;
+		protected List<String> dictionary;
+		protected Map<String, Integer> dictionaryIndex;
+		protected double[] doubles;
+		protected int[] ints;
+		protected long[] longs;
+		protected BitSet nulls = new BitSet();
+		protected Object[] objects;
+		protected int size = 0;
+		protected final int type;
+
+	}
+
+	private final String[] attributes;
+	private final Column[] columns;
+	private int size = 0;
+
+}
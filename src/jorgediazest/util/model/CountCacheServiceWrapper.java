@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.model;
+
+import com.liferay.portal.kernel.model.ClassedModel;
+
+import java.util.Collection;
+
+import jorgediazest.util.cache.TimedLRUCache;
+import jorgediazest.util.service.Service;
+import jorgediazest.util.service.ServiceBatchResult;
+import jorgediazest.util.service.ServiceWrapper;
+
+/**
+ * Service wrapper that clears a count cache every time an object is added,
+ * updated or deleted through it.
+ *
+ * @author Jorge Díaz
+ */
+public class CountCacheServiceWrapper extends ServiceWrapper {
+
+	public CountCacheServiceWrapper(
+		Service service, TimedLRUCache<String, Long> countCache) {
+
+		super(service);
+
+		this.countCache = countCache;
+	}
+
+	@Override
+	public ClassedModel addObject(ClassedModel object) {
+		try {
+			return super.addObject(object);
+		}
+		finally {
+			countCache.clear();
+		}
+	}
+
+	@Override
+	public ServiceBatchResult addObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		try {
+			return super.addObjects(objects, batchSize);
+		}
+		finally {
+			countCache.clear();
+		}
+	}
+
+	@Override
+	public CountCacheServiceWrapper clone() {
+		CountCacheServiceWrapper serviceWrapper =
+			new CountCacheServiceWrapper(service, countCache);
+
+		serviceWrapper.setCriterion(criterion);
+
+		return serviceWrapper;
+	}
+
+	@Override
+	public ClassedModel deleteObject(ClassedModel object) {
+		try {
+			return super.deleteObject(object);
+		}
+		finally {
+			countCache.clear();
+		}
+	}
+
+	@Override
+	public ClassedModel deleteObject(long primaryKey) {
+		try {
+			return super.deleteObject(primaryKey);
+		}
+		finally {
+			countCache.clear();
+		}
+	}
+
+	@Override
+	public ServiceBatchResult deleteObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		try {
+			return super.deleteObjects(objects, batchSize);
+		}
+		finally {
+			countCache.clear();
+		}
+	}
+
+	public TimedLRUCache<String, Long> getCountCache() {
+		return countCache;
+	}
+
+	@Override
+	public ClassedModel updateObject(ClassedModel object) {
+		try {
+			return super.updateObject(object);
+		}
+		finally {
+			countCache.clear();
+		}
+	}
+
+	@Override
+	public ServiceBatchResult updateObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		try {
+			return super.updateObjects(objects, batchSize);
+		}
+		finally {
+			countCache.clear();
+		}
+	}
+
+	protected TimedLRUCache<String, Long> countCache;
+
+}
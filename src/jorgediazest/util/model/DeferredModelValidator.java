@@ -0,0 +1,32 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.model;
+
+import com.liferay.portal.kernel.dao.orm.Criterion;
+
+/**
+ * Does not execute any query: models are always considered valid and any
+ * error is raised on the first query executed on them.
+ *
+ * @author Jorge Díaz
+ */
+public class DeferredModelValidator implements ModelValidator {
+
+	@Override
+	public boolean isValid(Model model, Criterion criterion) {
+		return true;
+	}
+
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.model;
+
+import com.liferay.portal.kernel.dao.orm.Criterion;
+import com.liferay.portal.kernel.dao.orm.Order;
+import com.liferay.portal.kernel.dao.orm.Projection;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import jorgediazest.util.service.Service;
+
+/**
+ * Iterates over the results of a dynamic query fetching them in pages of
+ * pageSize elements, so only one page is kept in memory at a time.
+ *
+ * Orders must define a total order of the results, otherwise rows can be
+ * skipped or repeated between pages.
+ *
+ * @author Jorge Díaz
+ */
+public class DynamicQueryIterator implements Iterator<Object> {
+
+	public DynamicQueryIterator(
+		Service service, Criterion criterion, Projection projection,
+		List<Order> orders, int pageSize) {
+
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException(
+				"pageSize must be greater than zero");
+		}
+
+		this.service = service;
+		this.criterion = criterion;
+		this.projection = projection;
+		this.orders = orders;
+		this.pageSize = pageSize;
+	}
+
+	public int getPageCount() {
+		return pageCount;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (pos < page.size()) {
+			return true;
+		}
+
+		if (lastPage) {
+			return false;
+		}
+
+		fetchNextPage();
+
+		return (pos < page.size());
+	}
+
+	@Override
+	public Object next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		return page.get(pos++);
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	protected void fetchNextPage() {
+		page = Collections.emptyList();
+		pos = 0;
+
+		List<?> list;
+
+		try {
+			list = ModelUtil.executeDynamicQuery(
+				service, criterion, projection, orders, start,
+				start + pageSize);
+		}
+		catch (Exception e) {
+			lastPage = true;
+
+			throw new RuntimeException(
+				"Error fetching page " + pageCount + " of " +
+					service.getClassName() + ": " + e.getMessage(), e);
+		}
+
+		pageCount++;
+		start = start + pageSize;
+
+		if ((list == null) || (list.size() < pageSize)) {
+			lastPage = true;
+		}
+
+		if (list != null) {
+			page = list;
+		}
+	}
+
+	protected Criterion criterion = null;
+	protected boolean lastPage = false;
+	protected List<Order> orders = null;
+	protected List<?> page = Collections.emptyList();
+	protected int pageCount = 0;
+	protected int pageSize;
+	protected int pos = 0;
+	protected Projection projection = null;
+	protected Service service;
+	protected int start = 0;
+
+}
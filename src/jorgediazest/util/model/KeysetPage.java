@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.model;
+
+import java.util.List;
+
+/**
+ * Page of results returned by a keyset (seek) query. The last key can be
+ * used to request the following page or to resume an interrupted scan.
+ *
+ * @author Jorge Díaz
+ */
+public class KeysetPage {
+
+	public KeysetPage(
+		List<?> results, String[] keyAttributes, Object[] lastKey,
+		int pageSize) {
+
+		this.results = results;
+		this.keyAttributes = keyAttributes;
+		this.lastKey = lastKey;
+		this.pageSize = pageSize;
+	}
+
+	public String[] getKeyAttributes() {
+		return keyAttributes;
+	}
+
+	/**
+	 * Values of the key attributes of the last row of this page, or the
+	 * key the page was requested with if it is empty. A null value means the
+	 * scan has not started yet.
+	 */
+	public Object[] getLastKey() {
+		return lastKey;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public List<?> getResults() {
+		return results;
+	}
+
+	/**
+	 * Returns false when this page is the last one. It can return true when
+	 * the remaining rows fit exactly in this page, in that case the following
+	 * page will be empty.
+	 */
+	public boolean hasMore() {
+		return (results.size() >= pageSize);
+	}
+
+	public int size() {
+		return results.size();
+	}
+
+	private String[] keyAttributes;
+	private Object[] lastKey;
+	private int pageSize;
+	private List<?> results;
+
+}
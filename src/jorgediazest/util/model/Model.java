@@ -19,11 +19,15 @@ import com.liferay.portal.kernel.dao.orm.Order;
 import com.liferay.portal.kernel.dao.orm.Projection;
 import com.liferay.portal.kernel.dao.orm.ProjectionList;
 import com.liferay.portal.kernel.dao.orm.Property;
+import com.liferay.portal.kernel.model.ClassedModel;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
+import jorgediazest.util.collection.LongLongHashMap;
 import jorgediazest.util.service.Service;
 import jorgediazest.util.table.TableInfo;
 
@@ -36,6 +40,35 @@ public interface Model extends Comparable<Model> {
 
 	public long count(Criterion criterion);
 
+	public Map<Object, Long> countByGroup(
+		Criterion criterion, String attribute);
+
+	public LongLongHashMap countByLongGroup(
+		Criterion criterion, String attribute);
+
+	public <T> long countChunked(
+		Criterion criterion, String attribute, List<T> values,
+		ExecutorService executor);
+
+	public <T> List<?> executeChunkedDynamicQuery(
+			Criterion criterion, Projection projection, String attribute,
+			List<T> values, ExecutorService executor)
+		throws Exception;
+
+	/**
+	 * Executes a projection query of the attributes storing the results by
+	 * columns, see ColumnarResultSet. Rows are fetched in keyset pages of
+	 * pageSize, or ModelImpl.DEFAULT_COLUMNAR_PAGE_SIZE if it is zero or less,
+	 * see executeKeysetQuery, so only the boxed values of one page are in
+	 * memory at a time. If there are aggregation operations like
+	 * count(attribute) a single query is run, as its rows can't be paged by
+	 * primary key, and all its boxed rows are in memory until they are
+	 * copied.
+	 */
+	public ColumnarResultSet executeColumnarQuery(
+			Criterion criterion, String[] attributes, int pageSize)
+		throws Exception;
+
 	public List<?> executeDynamicQuery(Criterion criterion) throws Exception;
 
 	public List<?> executeDynamicQuery(Criterion criterion, List<Order> orders)
@@ -52,10 +85,45 @@ public interface Model extends Comparable<Model> {
 			Criterion criterion, Projection projection, List<Order> order)
 		throws Exception;
 
+	public KeysetPage executeKeysetQuery(
+			Criterion criterion, String[] attributes, Object[] lastKey,
+			int pageSize)
+		throws Exception;
+
+	/**
+	 * Returns the non null values of a single attribute projection as a long
+	 * array. The values are copied from the result of a single query, so the
+	 * boxed values of all the rows are in memory until the copy ends. Use the
+	 * pageSize version for large results.
+	 */
+	public long[] executeLongProjectionQuery(
+			Criterion criterion, String attribute)
+		throws Exception;
+
+	/**
+	 * Same as executeLongProjectionQuery(Criterion, String) but fetching the
+	 * rows in keyset pages of pageSize, see executeKeysetQuery, so only the
+	 * boxed values of one page are in memory at a time. A pageSize of zero or
+	 * less, or an aggregation like max(attribute), runs a single query.
+	 */
+	public long[] executeLongProjectionQuery(
+			Criterion criterion, String attribute, int pageSize)
+		throws Exception;
+
+	/**
+	 * Fetches the objects with the primary keys with one query. The returned
+	 * map follows the order of primaryKeys and has a null value for the keys
+	 * that were not found.
+	 */
+	public Map<Long, ClassedModel> fetchObjects(long[] primaryKeys)
+		throws Exception;
+
 	public Class<?> getAttributeClass(String name);
 
 	public <T> Criterion getAttributeCriterion(String attribute, List<T> list);
 
+	public Criterion getAttributeCriterion(String attribute, long[] values);
+
 	public <T> Criterion getAttributeCriterion(String attribute, T value);
 
 	public int getAttributePos(String name);
@@ -118,6 +186,12 @@ public interface Model extends Comparable<Model> {
 
 	public boolean isWorkflowEnabled();
 
+	public Iterator<?> iterateDynamicQuery(Criterion criterion, int pageSize);
+
+	public Iterator<?> iterateDynamicQuery(
+		Criterion criterion, Projection projection, List<Order> orders,
+		int pageSize);
+
 	public boolean modelEqualsClass(Class<?> clazz);
 
 }
\ No newline at end of file
@@ -14,15 +14,25 @@
 
 package jorgediazest.util.model;
 
-import com.liferay.portal.kernel.concurrent.ConcurrentHashSet;
 import com.liferay.portal.kernel.log.Log;
 import com.liferay.portal.kernel.log.LogFactoryUtil;
 import com.liferay.portal.kernel.util.Validator;
 
-import java.util.Map;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
+import jorgediazest.util.cache.ClassLoaderCache;
+import jorgediazest.util.cache.TimedLRUCache;
 import jorgediazest.util.service.Service;
 import jorgediazest.util.service.ServiceUtil;
 
@@ -31,22 +41,281 @@ import jorgediazest.util.service.ServiceUtil;
  */
 public class ModelFactory {
 
+	public ModelFactory() {
+		this(DEFAULT_CACHE_MAX_SIZE);
+	}
+
+	/**
+	 * @param cacheMaxSize max number of models cached for each classloader
+	 */
+	public ModelFactory(int cacheMaxSize) {
+		cacheModelObject = new ClassLoaderCache<String, Model>(cacheMaxSize, 0);
+	}
+
+	/**
+	 * Removes the cached models and portal services owned by the classloader,
+	 * so an undeployed plugin is not kept in memory, and returns how many were
+	 * removed. The class names that could not be resolved are also forgotten,
+	 * as a new deployment could provide them.
+	 */
+	public int evictClassLoader(ClassLoader classLoader) {
+		int count = cacheModelObject.removeClassLoader(classLoader);
+
+		count = count + ServiceUtil.evictClassLoader(classLoader);
+
+		cacheNullModelObject.clear();
+
+		if (_log.isInfoEnabled()) {
+			_log.info(
+				"Evicted " + count + " cached objects of classloader " +
+					classLoader);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Evicts the classloaders having cached models whose local service is not
+	 * the registered one anymore, see ServiceUtil.isStale(Service), and returns
+	 * how many objects were removed
+	 */
+	public int evictStaleModels() {
+		int count = 0;
+
+		for (ClassLoader classLoader : cacheModelObject.getClassLoaders()) {
+			for (Model model : cacheModelObject.values(classLoader)) {
+				if (ServiceUtil.isStale(model.getService())) {
+					count = count + evictClassLoader(classLoader);
+
+					break;
+				}
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Validator used to check the criteria of filtered models
+	 */
+	public ModelValidator getFilteredModelValidator() {
+		return filteredModelValidator;
+	}
+
+	/**
+	 * Number of models constructed by getModelObject(String)
+	 */
+	public long getModelConstructionCount() {
+		return modelConstructionCount.get();
+	}
+
+	/**
+	 * Number of getModelObject(String) calls that waited for the construction
+	 * of the same model started by another thread
+	 */
+	public long getModelConstructionWaitCount() {
+		return modelConstructionWaitCount.get();
+	}
+
 	public Model getModelObject(Class<?> clazz) {
 		return getModelObject(clazz.getName());
 	}
 
 	public Model getModelObject(String className) {
-		String key = className;
+		final String key = className;
 
 		if (Validator.isNull(key)) {
 			return null;
 		}
 
-		if (cacheNullModelObject.contains(key)) {
+		if (cacheNullModelObject.get(key) != null) {
+			return null;
+		}
+
+		Model model = getCachedModelObject(key);
+
+		if (model != null) {
+			return model;
+		}
+
+		FutureTask<Model> futureTask = new FutureTask<Model>(
+			new Callable<Model>() {
+
+				@Override
+				public Model call() {
+					return createModelObject(key);
+				}
+
+			});
+
+		FutureTask<Model> inFlightTask = inFlightModelObjects.putIfAbsent(
+			key, futureTask);
+
+		if (inFlightTask == null) {
+			inFlightTask = futureTask;
+
+			modelConstructionCount.incrementAndGet();
+
+			try {
+				futureTask.run();
+			}
+			finally {
+				inFlightModelObjects.remove(key, futureTask);
+			}
+		}
+		else {
+			modelConstructionWaitCount.incrementAndGet();
+		}
+
+		try {
+			return inFlightTask.get();
+		}
+		catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+
+			return null;
+		}
+		catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+
+			if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Validator used to check the models before adding them to the cache
+	 */
+	public ModelValidator getModelValidator() {
+		return modelValidator;
+	}
+
+	/**
+	 * Cache of the class names whose model could not be resolved, with its
+	 * statistics
+	 */
+	public TimedLRUCache<String, Boolean> getNullModelCache() {
+		return cacheNullModelObject;
+	}
+
+	public void setFilteredModelValidator(
+		ModelValidator filteredModelValidator) {
+
+		this.filteredModelValidator = filteredModelValidator;
+	}
+
+	public void setModelValidator(ModelValidator modelValidator) {
+		this.modelValidator = modelValidator;
+	}
+
+	/**
+	 * Replaces the cache of the class names whose model could not be
+	 * resolved. They are retried after timeToLive milliseconds, zero or less
+	 * means never.
+	 */
+	public void setNullModelCache(int maxSize, long timeToLive) {
+		cacheNullModelObject = new TimedLRUCache<String, Boolean>(
+			maxSize, timeToLive);
+	}
+
+	/**
+	 * Resolves the models of the class names concurrently using the executor,
+	 * populating the model cache, and returns the time spent on each one and
+	 * the ones that could not be resolved.
+	 */
+	public ModelWarmUpResult warmUp(
+			Collection<String> classNames, ExecutorService executor)
+		throws InterruptedException {
+
+		final ModelWarmUpResult result = new ModelWarmUpResult();
+
+		long startTime = System.currentTimeMillis();
+
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+
+		for (final String className : new LinkedHashSet<String>(classNames)) {
+			if (Validator.isNull(className)) {
+				continue;
+			}
+
+			Runnable task = new Runnable() {
+
+				@Override
+				public void run() {
+					long modelStartTime = System.currentTimeMillis();
+
+					try {
+						Model model = getModelObject(className);
+
+						if (model != null) {
+							result.addModel(className, model);
+						}
+					}
+					catch (Throwable t) {
+						result.addError(className, t);
+					}
+					finally {
+						result.addTiming(
+							className,
+							System.currentTimeMillis() - modelStartTime);
+					}
+				}
+
+			};
+
+			futures.add(executor.submit(task));
+		}
+
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			}
+			catch (ExecutionException ee) {
+				_log.error(ee, ee);
+			}
+		}
+
+		result.setTotalTime(System.currentTimeMillis() - startTime);
+
+		if (_log.isInfoEnabled()) {
+			_log.info("Models warm up finished: " + result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Resolves the models of the class names using a pool of parallelism
+	 * threads, see warmUp(Collection, ExecutorService)
+	 */
+	public ModelWarmUpResult warmUp(
+			Collection<String> classNames, int parallelism)
+		throws InterruptedException {
+
+		ExecutorService executor = ModelUtil.newExecutorService(
+			ModelFactory.class.getSimpleName(), parallelism);
+
+		try {
+			return warmUp(classNames, executor);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	protected Model createModelObject(String className) {
+		if (cacheNullModelObject.get(className) != null) {
 			return null;
 		}
 
-		Model model = cacheModelObject.get(key);
+		Model model = getCachedModelObject(className);
 
 		if (model != null) {
 			return model;
@@ -59,14 +328,32 @@ public class ModelFactory {
 		}
 
 		if (model == null) {
-			cacheNullModelObject.add(key);
+			cacheNullModelObject.put(className, Boolean.TRUE);
 			return null;
 		}
 
-		cacheModelObject.put(key, model);
+		cacheModelObject.put(
+			className, model.getService().getClassLoader(), model);
 		return model;
 	}
 
+	/**
+	 * Returns the cached model, or null if it is not cached or if it is stale.
+	 * Finding a stale model means its plugin was redeployed, so all the models
+	 * of its classloader are evicted.
+	 */
+	protected Model getCachedModelObject(String className) {
+		Model model = cacheModelObject.get(className);
+
+		if ((model == null) || !ServiceUtil.isStale(model.getService())) {
+			return model;
+		}
+
+		evictClassLoader(model.getService().getClassLoader());
+
+		return null;
+	}
+
 	protected Model getModelObject(Service service) {
 		String className = service.getClassName();
 
@@ -79,7 +366,7 @@ public class ModelFactory {
 					model.getName() + " error retrieving attributes");
 			}
 
-			if (model.count()==-1) {
+			if (!modelValidator.isValid(model, null)) {
 				model = null;
 			}
 		}
@@ -96,10 +383,29 @@ public class ModelFactory {
 		return model;
 	}
 
-	protected Map<String, Model> cacheModelObject =
-		new ConcurrentHashMap<String, Model>();
-	protected Set<String> cacheNullModelObject =
-		new ConcurrentHashSet<String>();
+	protected static final int DEFAULT_CACHE_MAX_SIZE = 1000;
+
+	protected static final int DEFAULT_NULL_CACHE_MAX_SIZE = 10000;
+
+	protected static final long DEFAULT_NULL_CACHE_TIME_TO_LIVE =
+		5 * 60 * 1000;
+
+	protected static final int DEFAULT_VALIDATOR_CACHE_MAX_SIZE = 1000;
+
+	protected static final long DEFAULT_VALIDATOR_CACHE_TIME_TO_LIVE =
+		30 * 60 * 1000;
+
+	protected ClassLoaderCache<String, Model> cacheModelObject;
+	protected volatile TimedLRUCache<String, Boolean> cacheNullModelObject =
+		new TimedLRUCache<String, Boolean>(
+			DEFAULT_NULL_CACHE_MAX_SIZE, DEFAULT_NULL_CACHE_TIME_TO_LIVE);
+	protected ModelValidator filteredModelValidator = new ProbeModelValidator(
+		DEFAULT_VALIDATOR_CACHE_MAX_SIZE, DEFAULT_VALIDATOR_CACHE_TIME_TO_LIVE);
+	protected ConcurrentMap<String, FutureTask<Model>> inFlightModelObjects =
+		new ConcurrentHashMap<String, FutureTask<Model>>();
+	protected AtomicLong modelConstructionCount = new AtomicLong();
+	protected AtomicLong modelConstructionWaitCount = new AtomicLong();
+	protected ModelValidator modelValidator = new ProbeModelValidator();
 
 	private static Log _log = LogFactoryUtil.getLog(ModelFactory.class);
 
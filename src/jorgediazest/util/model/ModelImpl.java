@@ -14,6 +14,7 @@
 
 package jorgediazest.util.model;
 
+import com.liferay.portal.kernel.dao.orm.Conjunction;
 import com.liferay.portal.kernel.dao.orm.Criterion;
 import com.liferay.portal.kernel.dao.orm.Disjunction;
 import com.liferay.portal.kernel.dao.orm.Order;
@@ -25,6 +26,7 @@ import com.liferay.portal.kernel.dao.orm.PropertyFactoryUtil;
 import com.liferay.portal.kernel.dao.orm.RestrictionsFactoryUtil;
 import com.liferay.portal.kernel.log.Log;
 import com.liferay.portal.kernel.log.LogFactoryUtil;
+import com.liferay.portal.kernel.model.ClassedModel;
 import com.liferay.portal.kernel.util.PortalUtil;
 import com.liferay.portal.kernel.util.StringPool;
 import com.liferay.portal.kernel.util.Validator;
@@ -32,11 +34,16 @@ import com.liferay.portal.kernel.util.Validator;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
+import jorgediazest.util.cache.TimedLRUCache;
+import jorgediazest.util.collection.LongLongHashMap;
 import jorgediazest.util.service.Service;
 import jorgediazest.util.table.TableInfo;
 
@@ -45,9 +52,18 @@ import jorgediazest.util.table.TableInfo;
  */
 public class ModelImpl implements Model {
 
+	/* Page size used by executeColumnarQuery when none is given */
+	public static final int DEFAULT_COLUMNAR_PAGE_SIZE = 1000;
+
 	/* Oracle limitation */
 	public static final int MAX_NUMBER_OF_CLAUSES = 1000;
 
+	/* Maximum number of projection plans cached by each model */
+	public static final int MAX_PROJECTION_PLANS = 1000;
+
+	/* Minimum number of consecutive values collapsed in a between clause */
+	public static final int MIN_NUMBER_OF_RANGE_VALUES = 3;
+
 	public ModelImpl(
 			ModelFactory modelFactory, String className, Service service)
 		throws Exception {
@@ -79,12 +95,40 @@ public class ModelImpl implements Model {
 
 	@Override
 	public long count(Criterion criterion) {
+		TimedLRUCache<String, Long> countCache = this.countCache;
+
+		String key = null;
+		long generation = 0;
+
+		if (countCache != null) {
+			key = ModelUtil.getCriterionFingerprint(criterion);
+		}
+
+		if (key == null) {
+			countCache = null;
+		}
+		else {
+			generation = countCache.getGeneration();
+
+			Long count = countCache.get(key);
+
+			if (count != null) {
+				return count;
+			}
+		}
+
 		try {
 			List<?> list = executeDynamicQuery(
 				criterion, ProjectionFactoryUtil.rowCount());
 
 			if (list != null) {
-				return (Long)list.get(0);
+				Long count = (Long)list.get(0);
+
+				if (countCache != null) {
+					countCache.put(key, count, generation);
+				}
+
+				return count;
 			}
 		}
 		catch (Exception e) {
@@ -96,6 +140,96 @@ public class ModelImpl implements Model {
 		return -1;
 	}
 
+	@Override
+	public Map<Object, Long> countByGroup(
+		Criterion criterion, String attribute) {
+
+		return ModelUtil.countByGroup(this, criterion, attribute);
+	}
+
+	@Override
+	public LongLongHashMap countByLongGroup(
+		Criterion criterion, String attribute) {
+
+		return ModelUtil.countByLongGroup(this, criterion, attribute);
+	}
+
+	@Override
+	public <T> long countChunked(
+		Criterion criterion, String attribute, List<T> values,
+		ExecutorService executor) {
+
+		return ModelUtil.countChunked(
+			this, criterion, attribute, values, executor);
+	}
+
+	@Override
+	public <T> List<?> executeChunkedDynamicQuery(
+			Criterion criterion, Projection projection, String attribute,
+			List<T> values, ExecutorService executor)
+		throws Exception {
+
+		return ModelUtil.executeChunkedDynamicQuery(
+			this, criterion, projection, attribute, values, executor);
+	}
+
+	@Override
+	public ColumnarResultSet executeColumnarQuery(
+			Criterion criterion, String[] attributes, int pageSize)
+		throws Exception {
+
+		if ((attributes == null) || (attributes.length == 0)) {
+			throw new IllegalArgumentException("attributes cannot be empty");
+		}
+
+		ProjectionPlan projectionPlan = getProjectionPlan(attributes);
+
+		if (!projectionPlan.getNotValidAttributes().isEmpty()) {
+			throw new IllegalArgumentException(
+				projectionPlan.getNotValidAttributes() +
+					" are not valid attributes of " + getName());
+		}
+
+		ColumnarResultSet columnarResultSet = new ColumnarResultSet(
+			attributes.clone(), projectionPlan.getColumnClasses());
+
+		if (projectionPlan.hasAggregations()) {
+			ProjectionList projection = projectionPlan.toProjectionList();
+
+			List<?> list = executeDynamicQuery(criterion, projection);
+
+			for (Object row : list) {
+				columnarResultSet.addRow(row);
+			}
+		}
+		else {
+			if (pageSize <= 0) {
+				pageSize = DEFAULT_COLUMNAR_PAGE_SIZE;
+			}
+
+			Object[] lastKey = null;
+			KeysetPage page;
+
+			do {
+				page = executeKeysetQuery(
+					criterion, attributes, lastKey, pageSize);
+
+				int offset = page.getKeyAttributes().length;
+
+				for (Object row : page.getResults()) {
+					columnarResultSet.addRow((Object[])row, offset);
+				}
+
+				lastKey = page.getLastKey();
+			}
+			while (page.hasMore());
+		}
+
+		columnarResultSet.trimToSize();
+
+		return columnarResultSet;
+	}
+
 	@Override
 	public List<?> executeDynamicQuery(Criterion criterion) throws Exception {
 
@@ -135,6 +269,154 @@ public class ModelImpl implements Model {
 			getService(), criterion, projection, orders);
 	}
 
+	@Override
+	public KeysetPage executeKeysetQuery(
+			Criterion criterion, String[] attributes, Object[] lastKey,
+			int pageSize)
+		throws Exception {
+
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException(
+				"pageSize must be greater than zero");
+		}
+
+		String[] keyAttributes = getKeysetAttributes();
+
+		if ((lastKey != null) && (lastKey.length != keyAttributes.length)) {
+			throw new IllegalArgumentException(
+				"lastKey " + Arrays.toString(lastKey) + " does not match " +
+					Arrays.toString(keyAttributes));
+		}
+
+		Projection projection = null;
+
+		if (attributes != null) {
+			String[] projectionAttributes =
+				new String[keyAttributes.length + attributes.length];
+
+			System.arraycopy(
+				keyAttributes, 0, projectionAttributes, 0,
+				keyAttributes.length);
+			System.arraycopy(
+				attributes, 0, projectionAttributes, keyAttributes.length,
+				attributes.length);
+
+			projection = getPropertyProjection(projectionAttributes);
+		}
+
+		List<Order> orders = new ArrayList<Order>(keyAttributes.length);
+
+		for (String keyAttribute : keyAttributes) {
+			orders.add(getProperty(keyAttribute).asc());
+		}
+
+		criterion = ModelUtil.generateConjunctionCriterion(
+			criterion, getKeysetCriterion(keyAttributes, lastKey));
+
+		List<?> results = ModelUtil.executeDynamicQuery(
+			getService(), criterion, projection, orders, 0, pageSize);
+
+		if (results == null) {
+			results = Collections.emptyList();
+		}
+
+		if (!results.isEmpty()) {
+			lastKey = getKeysetKey(
+				keyAttributes, results.get(results.size() - 1));
+		}
+
+		return new KeysetPage(results, keyAttributes, lastKey, pageSize);
+	}
+
+	@Override
+	public long[] executeLongProjectionQuery(
+			Criterion criterion, String attribute)
+		throws Exception {
+
+		return executeLongProjectionQuery(criterion, attribute, 0);
+	}
+
+	@Override
+	public long[] executeLongProjectionQuery(
+			Criterion criterion, String attribute, int pageSize)
+		throws Exception {
+
+		Projection projection = getPropertyProjection(attribute);
+
+		if (projection == null) {
+			throw new IllegalArgumentException(
+				attribute + " is not a valid attribute of " + getName());
+		}
+
+		String[] attributes = {attribute};
+
+		if ((pageSize <= 0) ||
+			getProjectionPlan(attributes).hasAggregations()) {
+
+			List<?> list = executeDynamicQuery(criterion, projection);
+
+			return ModelUtil.getLongValues(list);
+		}
+
+		long[] values = new long[pageSize];
+		int size = 0;
+
+		Object[] lastKey = null;
+		KeysetPage page;
+
+		do {
+			page = executeKeysetQuery(criterion, attributes, lastKey, pageSize);
+
+			int column = page.getKeyAttributes().length;
+
+			for (Object row : page.getResults()) {
+				Object value = ((Object[])row)[column];
+
+				if (value == null) {
+					continue;
+				}
+
+				if (size == values.length) {
+					values = Arrays.copyOf(values, size * 2);
+				}
+
+				values[size++] = ((Number)value).longValue();
+			}
+
+			lastKey = page.getLastKey();
+		}
+		while (page.hasMore());
+
+		if (size < values.length) {
+			return Arrays.copyOf(values, size);
+		}
+
+		return values;
+	}
+
+	@Override
+	public Map<Long, ClassedModel> fetchObjects(long[] primaryKeys)
+		throws Exception {
+
+		String primaryKeyAttribute = getPrimaryKeyAttribute();
+
+		if (Validator.isNull(primaryKeyAttribute)) {
+			throw new UnsupportedOperationException(
+				getName() + " has a multi-attribute primary key");
+		}
+
+		if ((primaryKeys == null) || (primaryKeys.length == 0)) {
+			return new LinkedHashMap<Long, ClassedModel>();
+		}
+
+		Criterion criterion = getAttributeCriterion(
+			primaryKeyAttribute, primaryKeys);
+
+		List<?> list = executeDynamicQuery(criterion);
+
+		return ModelUtil.getPrimaryKeyMap(primaryKeys, list);
+	}
+
 	@Override
 	public Class<?> getAttributeClass(String name) {
 		return getTableInfo().getAttributeClass(name);
@@ -149,30 +431,44 @@ public class ModelImpl implements Model {
 
 		Property property = getProperty(attribute);
 
-		if (list.size() == 1) {
-			return property.eq(list.get(0));
+		if (list.size() > MAX_NUMBER_OF_CLAUSES) {
+			long[] values = ModelUtil.toLongArray(list);
+
+			if (values != null) {
+				Object firstValue = list.get(0);
+
+				return ModelUtil.generateRangeCriterion(
+					property, firstValue.getClass(), values);
+			}
 		}
 
-		int maxNumClauses = MAX_NUMBER_OF_CLAUSES;
+		return ModelUtil.generateInCriterion(property, list);
+	}
 
-		if (list.size() <= maxNumClauses) {
-			return property.in(list);
+	@Override
+	public Criterion getAttributeCriterion(String attribute, long[] values) {
+		if (!this.hasAttribute(attribute) || (values == null) ||
+			(values.length == 0)) {
+
+			return null;
 		}
 
-		Disjunction disjunction = RestrictionsFactoryUtil.disjunction();
+		Property property = getProperty(attribute);
+
+		Class<?> numberClass = getAttributeClass(attribute);
 
-		int numberOfDisjuntions =
-			((list.size() + maxNumClauses - 1) / maxNumClauses);
+		if (values.length > MAX_NUMBER_OF_CLAUSES) {
+			return ModelUtil.generateRangeCriterion(
+				property, numberClass, values);
+		}
 
-		for (int i = 0; i<numberOfDisjuntions; i++) {
-			int start = i * maxNumClauses;
-			int end = Math.min(start + maxNumClauses, list.size());
+		List<Object> list = new ArrayList<Object>(values.length);
 
-			List<T> subList = list.subList(start, end);
-			disjunction.add(property.in(subList));
+		for (long value : values) {
+			list.add(ModelUtil.toNumber(numberClass, value));
 		}
 
-		return disjunction;
+		return ModelUtil.generateInCriterion(property, list);
 	}
 
 	@Override
@@ -196,9 +492,21 @@ public class ModelImpl implements Model {
 		return className;
 	}
 
+	/**
+	 * Resolved on first call, not when the model is created, because it can
+	 * insert the ClassName row
+	 */
 	@Override
 	public long getClassNameId() {
-		return PortalUtil.getClassNameId(getClassName());
+		long classNameId = this.classNameId;
+
+		if (classNameId == 0) {
+			classNameId = PortalUtil.getClassNameId(getClassName());
+
+			this.classNameId = classNameId;
+		}
+
+		return classNameId;
 	}
 
 	@Override
@@ -206,6 +514,10 @@ public class ModelImpl implements Model {
 		return classSimpleName;
 	}
 
+	public TimedLRUCache<String, Long> getCountCache() {
+		return countCache;
+	}
+
 	@Override
 	public String getDisplayName(Locale locale) {
 		return ModelUtil.getDisplayName(this.getClassName(), locale);
@@ -222,12 +534,15 @@ public class ModelImpl implements Model {
 			return this;
 		}
 
-		if (count(criterion)==-1) {
+		ModelValidator modelValidator = ModelUtil.getFilteredModelValidator(
+			this);
+
+		if (!modelValidator.isValid(this, criterion)) {
 			return null;
 		}
 
 		ModelWrapper modelWrapper = new ModelWrapper(this);
-		modelWrapper.setCriterion(criterion);
+		modelWrapper.setCriterion(criterion, false);
 
 		if (Validator.isNotNull(nameSuffix)) {
 			modelWrapper.setNameSuffix(nameSuffix);
@@ -238,24 +553,7 @@ public class ModelImpl implements Model {
 
 	@Override
 	public List<String> getKeyAttributes() {
-		String primaryKeyAttribute = getPrimaryKeyAttribute();
-		String[] primaryKeyMultiAttribute = getPrimaryKeyMultiAttribute();
-
-		if (Validator.isNull(primaryKeyAttribute)) {
-			return Arrays.asList(primaryKeyMultiAttribute);
-		}
-
-		if (primaryKeyMultiAttribute.length == 0) {
-			return Collections.singletonList(primaryKeyAttribute);
-		}
-
-		List<String> primaryKeyAttributes = new ArrayList<String>();
-
-		primaryKeyAttributes.add(primaryKeyAttribute);
-
-		primaryKeyAttributes.addAll(Arrays.asList(primaryKeyMultiAttribute));
-
-		return primaryKeyAttributes;
+		return getModelMetadata().getKeyAttributes();
 	}
 
 	@Override
@@ -263,6 +561,21 @@ public class ModelImpl implements Model {
 		return modelFactory;
 	}
 
+	/**
+	 * Metadata computed once from the table info, see ModelMetadata
+	 */
+	public ModelMetadata getModelMetadata() {
+		ModelMetadata modelMetadata = this.modelMetadata;
+
+		if (modelMetadata == null) {
+			modelMetadata = createModelMetadata();
+
+			this.modelMetadata = modelMetadata;
+		}
+
+		return modelMetadata;
+	}
+
 	@Override
 	public String getName() {
 		return getClassName();
@@ -326,79 +639,17 @@ public class ModelImpl implements Model {
 			return null;
 		}
 
-		String[] op = new String[attributes.length];
-		String[] attributesAux = new String[attributes.length];
-
-		boolean grouping = false;
-
-		for (int i = 0; i<attributes.length; i++) {
-			String attribute = attributes[i];
-
-			if (attribute.indexOf("(") > 0) {
-				op[i] = attribute.substring(0, attribute.indexOf("("));
-				attributesAux[i] = attribute.substring(
-					attribute.indexOf("(") + 1, attribute.indexOf(")"));
-				grouping = true;
-			}
-			else {
-				op[i] = null;
-
-				if ("pk".equals(attribute)) {
-					attribute = this.getPrimaryKeyAttribute();
-				}
-
-				attributesAux[i] = attribute;
-			}
-		}
-
-		if (grouping) {
-			for (int i = 0; i<op.length; i++) {
-				if (op[i] == null) {
-					op[i] = "groupProperty";
-				}
-			}
-		}
-
-		ProjectionList projectionList = ProjectionFactoryUtil.projectionList();
-
-		Projection firstProjection = null;
-
-		int numProjections = 0;
-
-		for (int i = 0; i<attributesAux.length; i++) {
-			Projection projection = getPropertyProjection(
-				attributesAux[i], op[i]);
-
-			if ((projection == null) && (notValidAttributes != null)) {
-				notValidAttributes.add(attributes[i]);
-			}
-
-			if (projection == null) {
-				continue;
-			}
+		ProjectionPlan projectionPlan = getProjectionPlan(attributes);
 
-			projectionList.add(projection);
-
-			numProjections++;
-
-			if (firstProjection == null) {
-				firstProjection = projection;
-			}
-
-			if (validAttributes != null) {
-				validAttributes.add(attributes[i]);
-			}
-		}
-
-		if (numProjections == 0) {
-			return null;
+		if (validAttributes != null) {
+			validAttributes.addAll(projectionPlan.getValidAttributes());
 		}
 
-		if (numProjections == 1) {
-			projectionList.add(firstProjection);
+		if (notValidAttributes != null) {
+			notValidAttributes.addAll(projectionPlan.getNotValidAttributes());
 		}
 
-		return projectionList;
+		return projectionPlan.toProjectionList();
 	}
 
 	@Override
@@ -408,8 +659,12 @@ public class ModelImpl implements Model {
 
 	@Override
 	public TableInfo getTableInfo() {
+		TableInfo tableInfo = this.tableInfo;
+
 		if (tableInfo == null) {
 			tableInfo = service.getTableInfo();
+
+			this.tableInfo = tableInfo;
 		}
 
 		return tableInfo;
@@ -446,6 +701,8 @@ public class ModelImpl implements Model {
 
 	@Override
 	public Map<String, TableInfo> getTableInfoMappings() {
+		Map<String, TableInfo> tableInfoMappings = this.tableInfoMappings;
+
 		if (tableInfoMappings == null) {
 			Map<String, TableInfo> mappings =
 				new ConcurrentHashMap<String, TableInfo>();
@@ -460,7 +717,9 @@ public class ModelImpl implements Model {
 				mappings.put(destinationAttr, tableInfo);
 			}
 
-			this.tableInfoMappings = Collections.unmodifiableMap(mappings);
+			tableInfoMappings = Collections.unmodifiableMap(mappings);
+
+			this.tableInfoMappings = tableInfoMappings;
 		}
 
 		return tableInfoMappings;
@@ -485,28 +744,22 @@ public class ModelImpl implements Model {
 		return true;
 	}
 
-	@Override
-	public boolean isAuditedModel() {
-		if (hasAttribute("companyId") && hasAttribute("createDate") &&
-			hasAttribute("modifiedDate") && hasAttribute("userId") &&
-			hasAttribute("userName")) {
+	public void invalidateCountCache() {
+		TimedLRUCache<String, Long> countCache = this.countCache;
 
-			return true;
+		if (countCache != null) {
+			countCache.clear();
 		}
+	}
 
-		return false;
+	@Override
+	public boolean isAuditedModel() {
+		return getModelMetadata().hasFlag(ModelMetadata.AUDITED_MODEL);
 	}
 
 	@Override
 	public boolean isGroupedModel() {
-		if (isAuditedModel() && hasAttribute("groupId") &&
-			!getPrimaryKeyAttribute().equals("groupId")) {
-
-			return true;
-		}
-		else {
-			return false;
-		}
+		return getModelMetadata().hasFlag(ModelMetadata.GROUPED_MODEL);
 	}
 
 	@Override
@@ -523,37 +776,35 @@ public class ModelImpl implements Model {
 
 	@Override
 	public boolean isResourcedModel() {
-		if (hasAttribute("resourcePrimKey") &&
-			!getPrimaryKeyAttribute().equals("resourcePrimKey") &&
-			!isPartOfPrimaryKeyMultiAttribute("resourcePrimKey")) {
-
-			return true;
-		}
-
-		return false;
+		return getModelMetadata().hasFlag(ModelMetadata.RESOURCED_MODEL);
 	}
 
 	@Override
 	public boolean isStagedModel() {
-		if (hasAttribute("uuid") && hasAttribute("companyId") &&
-			hasAttribute("createDate") &&
-			hasAttribute("modifiedDate")) {
+		return getModelMetadata().hasFlag(ModelMetadata.STAGED_MODEL);
+	}
 
-			return true;
-		}
+	@Override
+	public boolean isWorkflowEnabled() {
+		return getModelMetadata().hasFlag(ModelMetadata.WORKFLOW_ENABLED);
+	}
 
-		return false;
+	@Override
+	public Iterator<?> iterateDynamicQuery(Criterion criterion, int pageSize) {
+		return iterateDynamicQuery(criterion, null, null, pageSize);
 	}
 
 	@Override
-	public boolean isWorkflowEnabled() {
-		if (hasAttribute("status") && hasAttribute("statusByUserId") &&
-			hasAttribute("statusByUserName") && hasAttribute("statusDate")) {
+	public Iterator<?> iterateDynamicQuery(
+		Criterion criterion, Projection projection, List<Order> orders,
+		int pageSize) {
 
-			return true;
+		if ((orders == null) && (projection == null)) {
+			orders = ModelUtil.getPrimaryKeyOrders(this);
 		}
 
-		return false;
+		return new DynamicQueryIterator(
+			getService(), criterion, projection, orders, pageSize);
 	}
 
 	@Override
@@ -561,6 +812,30 @@ public class ModelImpl implements Model {
 		return this.getClassName().equals(clazz.getName());
 	}
 
+	/**
+	 * Enables caching the results of count(Criterion), keyed by the criterion
+	 * fingerprint. A null countCache disables it. The cache is cleared when
+	 * objects are added, updated or deleted through getService(), so it must be
+	 * set before creating filtered models from this one. Counts of criteria
+	 * that can't be fingerprinted are not cached.
+	 */
+	public synchronized void setCountCache(
+		TimedLRUCache<String, Long> countCache) {
+
+		Service service = this.service;
+
+		if (service instanceof CountCacheServiceWrapper) {
+			service = ((CountCacheServiceWrapper)service).getWrappedService();
+		}
+
+		if (countCache != null) {
+			service = new CountCacheServiceWrapper(service, countCache);
+		}
+
+		this.service = service;
+		this.countCache = countCache;
+	}
+
 	@Override
 	public String toString() {
 		return getName();
@@ -588,56 +863,307 @@ public class ModelImpl implements Model {
 		return ModelUtil.getCachedAttributeName(attribute);
 	}
 
-	protected Projection getPropertyProjection(String attribute, String op) {
+	protected ModelMetadata createModelMetadata() {
+		TableInfo tableInfo = getTableInfo();
 
-		if ("rowCount".equals(op)) {
-			return ProjectionFactoryUtil.rowCount();
+		String primaryKeyAttribute = tableInfo.getPrimaryKeyAttribute();
+
+		int flags = 0;
+
+		boolean auditedModel =
+			hasAttribute("companyId") && hasAttribute("createDate") &&
+			hasAttribute("modifiedDate") && hasAttribute("userId") &&
+			hasAttribute("userName");
+
+		if (auditedModel) {
+			flags |= ModelMetadata.AUDITED_MODEL;
 		}
 
-		attribute = cleanAttributeName(attribute);
+		if (auditedModel && hasAttribute("groupId") &&
+			!primaryKeyAttribute.equals("groupId")) {
 
-		if (!this.hasAttribute(attribute)) {
+			flags |= ModelMetadata.GROUPED_MODEL;
+		}
+
+		if (hasAttribute("resourcePrimKey") &&
+			!primaryKeyAttribute.equals("resourcePrimKey") &&
+			!isPartOfPrimaryKeyMultiAttribute("resourcePrimKey")) {
+
+			flags |= ModelMetadata.RESOURCED_MODEL;
+		}
+
+		if (hasAttribute("uuid") && hasAttribute("companyId") &&
+			hasAttribute("createDate") && hasAttribute("modifiedDate")) {
+
+			flags |= ModelMetadata.STAGED_MODEL;
+		}
+
+		if (hasAttribute("status") && hasAttribute("statusByUserId") &&
+			hasAttribute("statusByUserName") && hasAttribute("statusDate")) {
+
+			flags |= ModelMetadata.WORKFLOW_ENABLED;
+		}
+
+		String[] primaryKeyMultiAttribute =
+			tableInfo.getPrimaryKeyMultiAttribute();
+
+		List<String> keyAttributes = new ArrayList<String>(
+			primaryKeyMultiAttribute.length + 1);
+
+		if (Validator.isNotNull(primaryKeyAttribute)) {
+			keyAttributes.add(primaryKeyAttribute);
+		}
+
+		keyAttributes.addAll(Arrays.asList(primaryKeyMultiAttribute));
+
+		return new ModelMetadata(flags, keyAttributes);
+	}
+
+	/**
+	 * Parses and validates the projection attributes, see ProjectionPlan
+	 */
+	protected ProjectionPlan createProjectionPlan(String[] attributes) {
+		String[] op = new String[attributes.length];
+		String[] attributesAux = new String[attributes.length];
+
+		boolean grouping = false;
+
+		for (int i = 0; i<attributes.length; i++) {
+			String attribute = attributes[i];
+
+			if (attribute.indexOf("(") > 0) {
+				op[i] = attribute.substring(0, attribute.indexOf("("));
+				attributesAux[i] = attribute.substring(
+					attribute.indexOf("(") + 1, attribute.indexOf(")"));
+				grouping = true;
+			}
+			else {
+				op[i] = null;
+
+				if ("pk".equals(attribute)) {
+					attribute = this.getPrimaryKeyAttribute();
+				}
+
+				attributesAux[i] = attribute;
+			}
+		}
+
+		if (grouping) {
+			for (int i = 0; i<op.length; i++) {
+				if (op[i] == null) {
+					op[i] = "groupProperty";
+				}
+			}
+		}
+
+		List<String> ops = new ArrayList<String>(attributes.length);
+		List<String> propertyNames = new ArrayList<String>(attributes.length);
+		List<String> validAttributes = new ArrayList<String>(attributes.length);
+		List<String> notValidAttributes = new ArrayList<String>();
+		List<Class<?>> columnClasses = new ArrayList<Class<?>>(
+			attributes.length);
+
+		for (int i = 0; i<attributesAux.length; i++) {
+			String propertyName = null;
+
+			if (!"rowCount".equals(op[i])) {
+				propertyName = getProjectionPropertyName(attributesAux[i]);
+			}
+
+			if (("rowCount".equals(op[i]) || (propertyName != null)) &&
+				(ProjectionPlan.newProjection(op[i], propertyName) != null)) {
+
+				ops.add(op[i]);
+				propertyNames.add(propertyName);
+				columnClasses.add(getProjectionClass(attributesAux[i], op[i]));
+				validAttributes.add(attributes[i]);
+			}
+			else {
+				notValidAttributes.add(attributes[i]);
+			}
+		}
+
+		return new ProjectionPlan(
+			ops.toArray(new String[ops.size()]),
+			propertyNames.toArray(new String[propertyNames.size()]),
+			columnClasses.toArray(new Class<?>[columnClasses.size()]),
+			validAttributes, notValidAttributes);
+	}
+
+	protected String[] getKeysetAttributes() {
+		String primaryKeyAttribute = getPrimaryKeyAttribute();
+
+		if (Validator.isNotNull(primaryKeyAttribute)) {
+			return new String[] {primaryKeyAttribute};
+		}
+
+		String[] primaryKeyMultiAttribute = getPrimaryKeyMultiAttribute();
+
+		if (primaryKeyMultiAttribute.length == 0) {
+			throw new UnsupportedOperationException(
+				getName() + " has no primary key");
+		}
+
+		return primaryKeyMultiAttribute;
+	}
+
+	/**
+	 * Generates the criterion that selects the rows whose key is greater than
+	 * lastKey: (k1 > v1) or (k1 = v1 and k2 > v2) or ...
+	 */
+	protected Criterion getKeysetCriterion(
+		String[] keyAttributes, Object[] lastKey) {
+
+		if (lastKey == null) {
 			return null;
 		}
 
-		if (isPartOfPrimaryKeyMultiAttribute(attribute)) {
-			attribute = "primaryKey." + attribute;
+		if (keyAttributes.length == 1) {
+			return getProperty(keyAttributes[0]).gt(lastKey[0]);
 		}
 
-		Projection property = null;
+		Disjunction disjunction = RestrictionsFactoryUtil.disjunction();
+
+		for (int i = 0; i < keyAttributes.length; i++) {
+			Conjunction conjunction = RestrictionsFactoryUtil.conjunction();
+
+			for (int j = 0; j < i; j++) {
+				conjunction.add(getProperty(keyAttributes[j]).eq(lastKey[j]));
+			}
+
+			conjunction.add(getProperty(keyAttributes[i]).gt(lastKey[i]));
 
-		if (Validator.isNull(op)) {
-			property = ProjectionFactoryUtil.property(attribute);
+			disjunction.add(conjunction);
 		}
-		else if ("count".equals(op)) {
-			property = ProjectionFactoryUtil.count(attribute);
+
+		return disjunction;
+	}
+
+	protected Object[] getKeysetKey(String[] keyAttributes, Object row) {
+		Object[] key = new Object[keyAttributes.length];
+
+		if (row instanceof Object[]) {
+			System.arraycopy((Object[])row, 0, key, 0, key.length);
+
+			return key;
 		}
-		else if ("countDistinct".equals(op)) {
-			property = ProjectionFactoryUtil.countDistinct(attribute);
+
+		ClassedModel classedModel = (ClassedModel)row;
+
+		if (key.length == 1) {
+			key[0] = classedModel.getPrimaryKeyObj();
+
+			return key;
+		}
+
+		Map<String, Object> modelAttributes =
+			classedModel.getModelAttributes();
+
+		for (int i = 0; i < keyAttributes.length; i++) {
+			key[i] = modelAttributes.get(keyAttributes[i]);
+		}
+
+		return key;
+	}
+
+	/**
+	 * Class of the values returned by the projection of the attribute with
+	 * the operation
+	 */
+	protected Class<?> getProjectionClass(String attribute, String op) {
+		if ("count".equals(op) || "countDistinct".equals(op) ||
+			"rowCount".equals(op)) {
+
+			return Long.class;
 		}
-		else if ("groupProperty".equals(op)) {
-			property = ProjectionFactoryUtil.groupProperty(attribute);
+
+		Class<?> attributeClass = getAttributeClass(
+			cleanAttributeName(attribute));
+
+		if (!"sum".equals(op)) {
+			return attributeClass;
 		}
-		else if ("max".equals(op)) {
-			property = ProjectionFactoryUtil.max(attribute);
+
+		if ((attributeClass == Byte.class) ||
+			(attributeClass == Integer.class) ||
+			(attributeClass == Long.class) ||
+			(attributeClass == Short.class)) {
+
+			return Long.class;
 		}
-		else if ("min".equals(op)) {
-			property = ProjectionFactoryUtil.min(attribute);
+
+		return Double.class;
+	}
+
+	/**
+	 * Returns the cached projection plan of the attributes, creating it the
+	 * first time
+	 */
+	protected ProjectionPlan getProjectionPlan(String[] attributes) {
+		List<String> key = Arrays.asList(attributes);
+
+		ProjectionPlan projectionPlan = projectionPlans.get(key);
+
+		if (projectionPlan != null) {
+			return projectionPlan;
 		}
-		else if ("sum".equals(op)) {
-			property = ProjectionFactoryUtil.sum(attribute);
+
+		projectionPlan = createProjectionPlan(attributes);
+
+		if (projectionPlans.size() < MAX_PROJECTION_PLANS) {
+			projectionPlans.put(
+				Arrays.asList(attributes.clone()), projectionPlan);
+		}
+
+		return projectionPlan;
+	}
+
+	/**
+	 * Property name used in projections of the attribute, including the
+	 * "primaryKey." prefix for composite primary keys, or null if the
+	 * attribute doesn't exist
+	 */
+	protected String getProjectionPropertyName(String attribute) {
+		attribute = cleanAttributeName(attribute);
+
+		if (!this.hasAttribute(attribute)) {
+			return null;
+		}
+
+		if (isPartOfPrimaryKeyMultiAttribute(attribute)) {
+			attribute = "primaryKey." + attribute;
+		}
+
+		return attribute;
+	}
+
+	protected Projection getPropertyProjection(String attribute, String op) {
+
+		if ("rowCount".equals(op)) {
+			return ProjectionFactoryUtil.rowCount();
+		}
+
+		String propertyName = getProjectionPropertyName(attribute);
+
+		if (propertyName == null) {
+			return null;
 		}
 
-		return property;
+		return ProjectionPlan.newProjection(op, propertyName);
 	}
 
 	protected static Log _log = LogFactoryUtil.getLog(ModelImpl.class);
 
 	protected String className = null;
+	protected volatile long classNameId = 0;
 	protected String classSimpleName = null;
+	protected volatile TimedLRUCache<String, Long> countCache = null;
 	protected ModelFactory modelFactory = null;
-	protected Service service = null;
-	protected TableInfo tableInfo = null;
-	protected Map<String, TableInfo> tableInfoMappings = null;
+	protected volatile ModelMetadata modelMetadata = null;
+	protected Map<List<String>, ProjectionPlan> projectionPlans =
+		new ConcurrentHashMap<List<String>, ProjectionPlan>();
+	protected volatile Service service = null;
+	protected volatile TableInfo tableInfo = null;
+	protected volatile Map<String, TableInfo> tableInfoMappings = null;
 
 }
\ No newline at end of file
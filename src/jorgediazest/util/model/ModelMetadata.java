@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable metadata of a model that is computed once from its table info:
+ * capability flags and key attributes. It does not depend on the database
+ * content, so it is safe to compute while the model is being created.
+ *
+ * @author Jorge Díaz
+ */
+public class ModelMetadata {
+
+	public static final int AUDITED_MODEL = 1;
+
+	public static final int GROUPED_MODEL = 1 << 1;
+
+	public static final int RESOURCED_MODEL = 1 << 2;
+
+	public static final int STAGED_MODEL = 1 << 3;
+
+	public static final int WORKFLOW_ENABLED = 1 << 4;
+
+	public ModelMetadata(int flags, List<String> keyAttributes) {
+		this.flags = flags;
+		this.keyAttributes = Collections.unmodifiableList(keyAttributes);
+	}
+
+	public int getFlags() {
+		return flags;
+	}
+
+	public List<String> getKeyAttributes() {
+		return keyAttributes;
+	}
+
+	public boolean hasFlag(int flag) {
+		return ((flags & flag) == flag);
+	}
+
+	@Override
+	public String toString() {
+		return "{flags=" + flags + ", keyAttributes=" + keyAttributes + "}";
+	}
+
+	private final int flags;
+	private final List<String> keyAttributes;
+
+}
@@ -0,0 +1,494 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.model;
+
+import com.liferay.portal.kernel.dao.orm.Criterion;
+import com.liferay.portal.kernel.dao.orm.Order;
+import com.liferay.portal.kernel.dao.orm.Projection;
+import com.liferay.portal.kernel.dao.orm.ProjectionList;
+import com.liferay.portal.kernel.dao.orm.Property;
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+import com.liferay.portal.kernel.util.Validator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Scans a model splitting its primary key range in partitions that are
+ * queried concurrently.
+ *
+ * The range is obtained with min(pk) and max(pk) and split in numPartitions
+ * sub-ranges. Each sub-range is counted: the ones with more than
+ * maxPartitionSize rows are split in two halves and the adjacent ones with
+ * less than minPartitionSize rows are merged, before querying them.
+ *
+ * Only models with a single numeric primary key are supported.
+ *
+ * @author Jorge Díaz
+ */
+public class ModelParallelScan {
+
+	public static final int DEFAULT_MAX_PARTITION_SIZE = 50000;
+
+	public static final int DEFAULT_MIN_PARTITION_SIZE = 1000;
+
+	public static final int DEFAULT_NUM_PARTITIONS = 16;
+
+	public ModelParallelScan(Model model, ExecutorService executorService) {
+		this.model = model;
+		this.executorService = executorService;
+		this.parallelism = 0;
+	}
+
+	public ModelParallelScan(Model model, int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException(
+				"parallelism must be greater than zero");
+		}
+
+		this.model = model;
+		this.executorService = null;
+		this.parallelism = parallelism;
+	}
+
+	public List<?> execute() throws Exception {
+		String primaryKeyAttribute = model.getPrimaryKeyAttribute();
+
+		if (Validator.isNull(primaryKeyAttribute)) {
+			throw new UnsupportedOperationException(
+				model.getName() + " has no single primary key");
+		}
+
+		primaryKeyClass = model.getAttributeClass(primaryKeyAttribute);
+
+		if (!Long.class.equals(primaryKeyClass) &&
+			!Integer.class.equals(primaryKeyClass) &&
+			!Short.class.equals(primaryKeyClass)) {
+
+			throw new UnsupportedOperationException(
+				model.getName() + " primary key is not numeric: " +
+					primaryKeyClass);
+		}
+
+		primaryKeyProperty = model.getProperty(primaryKeyAttribute);
+
+		ExecutorService executor = executorService;
+
+		if (executor == null) {
+			executor = ModelUtil.newExecutorService(
+				ModelParallelScan.class.getSimpleName(), parallelism);
+		}
+
+		try {
+			partitions = planPartitions(executor, primaryKeyAttribute);
+
+			if (_log.isDebugEnabled()) {
+				_log.debug(
+					"Scanning " + model.getName() + " using " +
+						partitions.size() + " partitions: " + partitions);
+			}
+
+			if (ordered) {
+				return executeOrdered(executor, partitions);
+			}
+
+			return executeUnordered(executor, partitions);
+		}
+		finally {
+			if (executorService == null) {
+				executor.shutdown();
+			}
+		}
+	}
+
+	public Criterion getCriterion() {
+		return criterion;
+	}
+
+	public int getMaxPartitionSize() {
+		return maxPartitionSize;
+	}
+
+	public int getMinPartitionSize() {
+		return minPartitionSize;
+	}
+
+	public Model getModel() {
+		return model;
+	}
+
+	public int getNumPartitions() {
+		return numPartitions;
+	}
+
+	/**
+	 * Partitions used by the last execution
+	 */
+	public List<Partition> getPartitions() {
+		return partitions;
+	}
+
+	public Projection getProjection() {
+		return projection;
+	}
+
+	public boolean isOrdered() {
+		return ordered;
+	}
+
+	public void setCriterion(Criterion criterion) {
+		this.criterion = criterion;
+	}
+
+	public void setMaxPartitionSize(int maxPartitionSize) {
+		this.maxPartitionSize = maxPartitionSize;
+	}
+
+	public void setMinPartitionSize(int minPartitionSize) {
+		this.minPartitionSize = minPartitionSize;
+	}
+
+	public void setNumPartitions(int numPartitions) {
+		if (numPartitions <= 0) {
+			throw new IllegalArgumentException(
+				"numPartitions must be greater than zero");
+		}
+
+		this.numPartitions = numPartitions;
+	}
+
+	/**
+	 * If ordered is true, results are returned ordered by partition and, when
+	 * no projection is set, by primary key inside each partition. Otherwise
+	 * they are returned in completion order.
+	 */
+	public void setOrdered(boolean ordered) {
+		this.ordered = ordered;
+	}
+
+	public void setProjection(Projection projection) {
+		this.projection = projection;
+	}
+
+	public static class Partition {
+
+		public Partition(long start, long end) {
+			this(start, end, -1);
+		}
+
+		public Partition(long start, long end, long count) {
+			this.start = start;
+			this.end = end;
+			this.count = count;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getEnd() {
+			return end;
+		}
+
+		public long getStart() {
+			return start;
+		}
+
+		@Override
+		public String toString() {
+			return "[" + start + ", " + end + "]: " + count;
+		}
+
+		protected long count;
+		protected long end;
+		protected long start;
+
+	}
+
+	protected void countPartitions(
+			ExecutorService executor, List<Partition> partitions)
+		throws Exception {
+
+		List<Callable<Long>> tasks = new ArrayList<Callable<Long>>(
+			partitions.size());
+
+		for (final Partition partition : partitions) {
+			tasks.add(
+				new Callable<Long>() {
+
+					@Override
+					public Long call() throws Exception {
+						long count = model.count(
+							getPartitionCriterion(partition));
+
+						if (count == -1) {
+							throw new Exception(
+								"Error counting " + model.getName() +
+									" partition " + partition);
+						}
+
+						return count;
+					}
+
+				});
+		}
+
+		List<Long> counts = ModelUtil.invokeAll(executor, tasks);
+
+		for (int i = 0; i < counts.size(); i++) {
+			partitions.get(i).count = counts.get(i);
+		}
+	}
+
+	protected List<?> executeOrdered(
+			ExecutorService executor, List<Partition> partitions)
+		throws Exception {
+
+		List<Future<List<?>>> futures = new ArrayList<Future<List<?>>>(
+			partitions.size());
+
+		for (Partition partition : partitions) {
+			futures.add(executor.submit(getQueryTask(partition)));
+		}
+
+		List<Object> results = new ArrayList<Object>();
+
+		try {
+			for (Future<List<?>> future : futures) {
+				results.addAll(ModelUtil.getFutureResult(future));
+			}
+		}
+		finally {
+			for (Future<List<?>> future : futures) {
+				future.cancel(true);
+			}
+		}
+
+		return results;
+	}
+
+	protected List<?> executeUnordered(
+			ExecutorService executor, List<Partition> partitions)
+		throws Exception {
+
+		CompletionService<List<?>> completionService =
+			new ExecutorCompletionService<List<?>>(executor);
+
+		List<Future<List<?>>> futures = new ArrayList<Future<List<?>>>(
+			partitions.size());
+
+		for (Partition partition : partitions) {
+			futures.add(completionService.submit(getQueryTask(partition)));
+		}
+
+		List<Object> results = new ArrayList<Object>();
+
+		try {
+			for (int i = 0; i < partitions.size(); i++) {
+				Future<List<?>> future = completionService.take();
+
+				results.addAll(ModelUtil.getFutureResult(future));
+			}
+		}
+		finally {
+			for (Future<List<?>> future : futures) {
+				future.cancel(true);
+			}
+		}
+
+		return results;
+	}
+
+	protected Criterion getPartitionCriterion(Partition partition) {
+		Criterion partitionCriterion = primaryKeyProperty.between(
+			ModelUtil.toNumber(primaryKeyClass, partition.start),
+			ModelUtil.toNumber(primaryKeyClass, partition.end));
+
+		return ModelUtil.generateConjunctionCriterion(
+			criterion, partitionCriterion);
+	}
+
+	protected Callable<List<?>> getQueryTask(final Partition partition) {
+		final List<Order> orders;
+
+		if (ordered && (projection == null)) {
+			orders = Collections.singletonList(primaryKeyProperty.asc());
+		}
+		else {
+			orders = null;
+		}
+
+		return new Callable<List<?>>() {
+
+			@Override
+			public List<?> call() throws Exception {
+				List<?> list = model.executeDynamicQuery(
+					getPartitionCriterion(partition), projection, orders);
+
+				if (list == null) {
+					return Collections.emptyList();
+				}
+
+				return list;
+			}
+
+		};
+	}
+
+	protected List<Partition> mergePartitions(List<Partition> partitions) {
+		List<Partition> merged = new ArrayList<Partition>();
+
+		Partition current = null;
+
+		for (Partition partition : partitions) {
+			if ((current != null) &&
+				((current.count < minPartitionSize) ||
+				 (partition.count < minPartitionSize)) &&
+				((current.count + partition.count) <= maxPartitionSize)) {
+
+				current = new Partition(
+					current.start, partition.end,
+					current.count + partition.count);
+
+				continue;
+			}
+
+			if (current != null) {
+				merged.add(current);
+			}
+
+			current = partition;
+		}
+
+		if (current != null) {
+			merged.add(current);
+		}
+
+		return merged;
+	}
+
+	protected List<Partition> planPartitions(
+			ExecutorService executor, String primaryKeyAttribute)
+		throws Exception {
+
+		ProjectionList projectionList = model.getPropertyProjection(
+			new String[] {
+				"min(" + primaryKeyAttribute + ")",
+				"max(" + primaryKeyAttribute + ")"
+			});
+
+		List<?> list = model.executeDynamicQuery(criterion, projectionList);
+
+		if ((list == null) || list.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		Object[] minMax = (Object[])list.get(0);
+
+		if ((minMax[0] == null) || (minMax[1] == null)) {
+			return Collections.emptyList();
+		}
+
+		long min = ((Number)minMax[0]).longValue();
+		long max = ((Number)minMax[1]).longValue();
+
+		List<Partition> pending = splitRange(min, max, numPartitions);
+
+		List<Partition> planned = new ArrayList<Partition>();
+
+		while (!pending.isEmpty()) {
+			countPartitions(executor, pending);
+
+			List<Partition> oversized = new ArrayList<Partition>();
+
+			for (Partition partition : pending) {
+				if ((partition.count > maxPartitionSize) &&
+					(partition.end > partition.start)) {
+
+					oversized.addAll(
+						splitRange(partition.start, partition.end, 2));
+				}
+				else {
+					planned.add(partition);
+				}
+			}
+
+			pending = oversized;
+		}
+
+		Collections.sort(
+			planned,
+			new Comparator<Partition>() {
+
+				@Override
+				public int compare(Partition p1, Partition p2) {
+					return Long.compare(p1.start, p2.start);
+				}
+
+			});
+
+		return mergePartitions(planned);
+	}
+
+	protected List<Partition> splitRange(long min, long max, int num) {
+		List<Partition> partitions = new ArrayList<Partition>(num);
+
+		long size = ((max - min) / num) + 1;
+
+		long start = min;
+
+		while (start <= max) {
+			long end = start + size - 1;
+
+			if ((end > max) || (end < start)) {
+				end = max;
+			}
+
+			partitions.add(new Partition(start, end));
+
+			if (end == max) {
+				break;
+			}
+
+			start = end + 1;
+		}
+
+		return partitions;
+	}
+
+	protected Criterion criterion = null;
+	protected ExecutorService executorService;
+	protected int maxPartitionSize = DEFAULT_MAX_PARTITION_SIZE;
+	protected int minPartitionSize = DEFAULT_MIN_PARTITION_SIZE;
+	protected Model model;
+	protected int numPartitions = DEFAULT_NUM_PARTITIONS;
+	protected boolean ordered = false;
+	protected int parallelism;
+	protected List<Partition> partitions = Collections.emptyList();
+	protected Class<?> primaryKeyClass = null;
+	protected Property primaryKeyProperty = null;
+	protected Projection projection = null;
+
+	private static Log _log = LogFactoryUtil.getLog(ModelParallelScan.class);
+
+}
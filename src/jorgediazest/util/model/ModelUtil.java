@@ -20,22 +20,48 @@ import com.liferay.portal.kernel.dao.orm.Disjunction;
 import com.liferay.portal.kernel.dao.orm.DynamicQuery;
 import com.liferay.portal.kernel.dao.orm.Order;
 import com.liferay.portal.kernel.dao.orm.Projection;
+import com.liferay.portal.kernel.dao.orm.ProjectionList;
+import com.liferay.portal.kernel.dao.orm.Property;
+import com.liferay.portal.kernel.dao.orm.QueryUtil;
 import com.liferay.portal.kernel.dao.orm.RestrictionsFactoryUtil;
 import com.liferay.portal.kernel.log.Log;
 import com.liferay.portal.kernel.log.LogFactoryUtil;
 import com.liferay.portal.kernel.model.ClassName;
+import com.liferay.portal.kernel.model.ClassedModel;
 import com.liferay.portal.kernel.util.StringPool;
 import com.liferay.portal.kernel.util.Validator;
 import com.liferay.portal.kernel.security.permission.ResourceActionsUtil;
+import com.liferay.portal.kernel.util.NamedThreadFactory;
 import com.liferay.portal.kernel.util.PortalUtil;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import jorgediazest.util.collection.LongLongHashMap;
+import jorgediazest.util.reflection.ReflectionUtil;
 import jorgediazest.util.service.Service;
 
 /**
@@ -43,11 +69,174 @@ import jorgediazest.util.service.Service;
  */
 public class ModelUtil {
 
+	/**
+	 * Counts the rows matching the criterion grouped by the values of the
+	 * attribute, using a single groupProperty and rowCount query. Returns null
+	 * if the query fails.
+	 */
+	public static Map<Object, Long> countByGroup(
+		Model model, Criterion criterion, String attribute) {
+
+		List<?> list = executeGroupCountQuery(model, criterion, attribute);
+
+		if (list == null) {
+			return null;
+		}
+
+		Map<Object, Long> counts = new HashMap<Object, Long>(list.size());
+
+		for (Object row : list) {
+			Object[] rowArr = (Object[])row;
+
+			counts.put(rowArr[0], ((Number)rowArr[1]).longValue());
+		}
+
+		return counts;
+	}
+
+	/**
+	 * Same as countByGroup but for numeric attributes, returning the counts in
+	 * a primitive map. Rows with a null value in the attribute are not
+	 * counted. Returns null if the query fails.
+	 */
+	public static LongLongHashMap countByLongGroup(
+		Model model, Criterion criterion, String attribute) {
+
+		Property property = model.getProperty(attribute);
+
+		criterion = generateConjunctionCriterion(
+			criterion, property.isNotNull());
+
+		List<?> list = executeGroupCountQuery(model, criterion, attribute);
+
+		if (list == null) {
+			return null;
+		}
+
+		LongLongHashMap counts = new LongLongHashMap(list.size());
+
+		for (Object row : list) {
+			Object[] rowArr = (Object[])row;
+
+			counts.put(
+				((Number)rowArr[0]).longValue(),
+				((Number)rowArr[1]).longValue());
+		}
+
+		return counts;
+	}
+
+	/**
+	 * Counts the rows matching the criterion and having one of the values in
+	 * the attribute, running one count query per chunk of
+	 * MAX_NUMBER_OF_CLAUSES values on the executor and adding the results.
+	 * Returns -1 if any of the queries fails.
+	 */
+	public static <T> long countChunked(
+		final Model model, Criterion criterion, String attribute,
+		List<T> values, ExecutorService executor) {
+
+		List<Criterion> chunkCriteria = getChunkCriteria(
+			model, criterion, attribute, values);
+
+		List<Callable<Long>> tasks = new ArrayList<Callable<Long>>(
+			chunkCriteria.size());
+
+		for (final Criterion chunkCriterion : chunkCriteria) {
+			tasks.add(
+				new Callable<Long>() {
+
+					@Override
+					public Long call() throws Exception {
+						long count = model.count(chunkCriterion);
+
+						if (count == -1) {
+							throw new Exception(
+								"Error executing count for " +
+									model.getName());
+						}
+
+						return count;
+					}
+
+				});
+		}
+
+		long count = 0;
+
+		try {
+			for (Long result : invokeAll(executor, tasks)) {
+				count = count + result;
+			}
+		}
+		catch (Exception e) {
+			_log.error(
+				"Error executing chunked count for " + model.getName() + ": " +
+					e.getMessage());
+
+			return -1;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Executes the query for the rows matching the criterion and having one of
+	 * the values in the attribute, running one query per chunk of
+	 * MAX_NUMBER_OF_CLAUSES values on the executor. Results are concatenated
+	 * in chunk order.
+	 */
+	public static <T> List<?> executeChunkedDynamicQuery(
+			final Model model, Criterion criterion,
+			final Projection projection, String attribute, List<T> values,
+			ExecutorService executor)
+		throws Exception {
+
+		List<Criterion> chunkCriteria = getChunkCriteria(
+			model, criterion, attribute, values);
+
+		List<Callable<List<?>>> tasks = new ArrayList<Callable<List<?>>>(
+			chunkCriteria.size());
+
+		for (final Criterion chunkCriterion : chunkCriteria) {
+			tasks.add(
+				new Callable<List<?>>() {
+
+					@Override
+					public List<?> call() throws Exception {
+						return model.executeDynamicQuery(
+							chunkCriterion, projection);
+					}
+
+				});
+		}
+
+		List<Object> results = new ArrayList<Object>();
+
+		for (List<?> result : invokeAll(executor, tasks)) {
+			if (result != null) {
+				results.addAll(result);
+			}
+		}
+
+		return results;
+	}
+
 	public static List<?> executeDynamicQuery(
 			Service service, Criterion criterion, Projection projection,
 			List<Order> orders)
 		throws Exception {
 
+		return executeDynamicQuery(
+			service, criterion, projection, orders, QueryUtil.ALL_POS,
+			QueryUtil.ALL_POS);
+	}
+
+	public static List<?> executeDynamicQuery(
+			Service service, Criterion criterion, Projection projection,
+			List<Order> orders, int start, int end)
+		throws Exception {
+
 		DynamicQuery query = service.newDynamicQuery();
 
 		if (projection != null) {
@@ -64,9 +253,37 @@ public class ModelUtil {
 			query.add(criterion);
 		}
 
+		if ((start != QueryUtil.ALL_POS) || (end != QueryUtil.ALL_POS)) {
+			query.setLimit(start, end);
+		}
+
 		return service.executeDynamicQuery(query);
 	}
 
+	public static List<?> executeGroupCountQuery(
+		Model model, Criterion criterion, String attribute) {
+
+		try {
+			ProjectionList projection = model.getPropertyProjection(
+				new String[] {attribute, "rowCount(*)"});
+
+			List<?> list = model.executeDynamicQuery(criterion, projection);
+
+			if (list == null) {
+				return Collections.emptyList();
+			}
+
+			return list;
+		}
+		catch (Exception e) {
+			_log.error(
+				"Error executing count by " + attribute + " for " +
+					model.getName() + ": " + e.getMessage());
+		}
+
+		return null;
+	}
+
 	public static Criterion generateConjunctionCriterion(
 		Criterion... criterion) {
 
@@ -123,6 +340,108 @@ public class ModelUtil {
 		return disjunction;
 	}
 
+	public static <T> Criterion generateInCriterion(
+		Property property, List<T> list) {
+
+		if (list.size() == 1) {
+			return property.eq(list.get(0));
+		}
+
+		int maxNumClauses = ModelImpl.MAX_NUMBER_OF_CLAUSES;
+
+		if (list.size() <= maxNumClauses) {
+			return property.in(list);
+		}
+
+		Disjunction disjunction = RestrictionsFactoryUtil.disjunction();
+
+		int numberOfDisjuntions =
+			((list.size() + maxNumClauses - 1) / maxNumClauses);
+
+		for (int i = 0; i<numberOfDisjuntions; i++) {
+			int start = i * maxNumClauses;
+			int end = Math.min(start + maxNumClauses, list.size());
+
+			List<T> subList = list.subList(start, end);
+			disjunction.add(property.in(subList));
+		}
+
+		return disjunction;
+	}
+
+	/**
+	 * Generates a criterion that matches the given integer values, collapsing
+	 * runs of consecutive values in between clauses. The values that are not
+	 * part of a run are added using in clauses. Values are converted to
+	 * numberClass (Long, Integer or Short) before adding them to the criterion.
+	 */
+	public static Criterion generateRangeCriterion(
+		Property property, Class<?> numberClass, long[] values) {
+
+		if ((values == null) || (values.length == 0)) {
+			return null;
+		}
+
+		long[] sortedValues = values.clone();
+
+		Arrays.sort(sortedValues);
+
+		List<Criterion> criteria = new ArrayList<Criterion>();
+		List<Object> sparseValues = new ArrayList<Object>();
+
+		int i = 0;
+
+		while (i < sortedValues.length) {
+			long start = sortedValues[i];
+			long end = start;
+			int numValues = 1;
+
+			int j = i + 1;
+
+			while ((j < sortedValues.length) &&
+				   ((sortedValues[j] == end) ||
+					(sortedValues[j] == (end + 1)))) {
+
+				if (sortedValues[j] != end) {
+					end = sortedValues[j];
+					numValues++;
+				}
+
+				j++;
+			}
+
+			if (numValues >= ModelImpl.MIN_NUMBER_OF_RANGE_VALUES) {
+				criteria.add(
+					property.between(
+						toNumber(numberClass, start),
+						toNumber(numberClass, end)));
+			}
+			else {
+				for (int k = 0; k < numValues; k++) {
+					sparseValues.add(toNumber(numberClass, start + k));
+				}
+			}
+
+			i = j;
+		}
+
+		if (!sparseValues.isEmpty()) {
+			criteria.add(generateInCriterion(property, sparseValues));
+		}
+
+		if (criteria.size() == 1) {
+			return criteria.get(0);
+		}
+
+		Disjunction disjunction = RestrictionsFactoryUtil.disjunction();
+
+		for (Criterion criterion : criteria) {
+			disjunction.add(criterion);
+		}
+
+		return disjunction;
+	}
+
 	public static Criterion generateSQLCriterion(String sql) {
 		if (Validator.isNull(sql)) {
 			return null;
@@ -134,11 +453,61 @@ public class ModelUtil {
 	}
 
 	public static String getCachedAttributeName(String attribute) {
-		if (!cachedAttributeNames.containsKey(attribute)) {
-			cachedAttributeNames.put(attribute, attribute);
+		String cachedAttribute = cachedAttributeNames.get(attribute);
+
+		if (cachedAttribute != null) {
+			return cachedAttribute;
 		}
 
-		return cachedAttributeNames.get(attribute);
+		if (cachedAttributeNames.size() >= MAX_CACHED_ATTRIBUTE_NAMES) {
+			return attribute;
+		}
+
+		cachedAttribute = cachedAttributeNames.putIfAbsent(
+			attribute, attribute);
+
+		if (cachedAttribute != null) {
+			return cachedAttribute;
+		}
+
+		return attribute;
+	}
+
+	/**
+	 * Returns the criterion combined with an attribute criterion for each
+	 * chunk of MAX_NUMBER_OF_CLAUSES values. Duplicated values are removed
+	 * first, so each row matches a single chunk.
+	 */
+	public static <T> List<Criterion> getChunkCriteria(
+		Model model, Criterion criterion, String attribute, List<T> values) {
+
+		if (!model.hasAttribute(attribute)) {
+			throw new IllegalArgumentException(
+				attribute + " is not a valid attribute of " + model.getName());
+		}
+
+		if (Validator.isNull(values)) {
+			return Collections.emptyList();
+		}
+
+		values = new ArrayList<T>(new LinkedHashSet<T>(values));
+
+		int maxNumClauses = ModelImpl.MAX_NUMBER_OF_CLAUSES;
+
+		List<Criterion> chunkCriteria = new ArrayList<Criterion>(
+			(values.size() + maxNumClauses - 1) / maxNumClauses);
+
+		for (int start = 0; start < values.size(); start += maxNumClauses) {
+			int end = Math.min(start + maxNumClauses, values.size());
+
+			Criterion chunkCriterion = model.getAttributeCriterion(
+				attribute, values.subList(start, end));
+
+			chunkCriteria.add(
+				generateConjunctionCriterion(criterion, chunkCriterion));
+		}
+
+		return chunkCriteria;
 	}
 
 	public static List<String> getClassNameValues(
@@ -157,6 +526,44 @@ public class ModelUtil {
 		return classNameStr;
 	}
 
+	/**
+	 * Returns a string that identifies the criterion, built walking the fields
+	 * of the wrapped Hibernate criterion, so it includes every value, like the
+	 * parameters of SQL restrictions, with its type and dates as epoch
+	 * milliseconds. Equivalent criteria built the same way get the same
+	 * fingerprint. Returns null if the criterion can't be fingerprinted, so
+	 * it must not be used as a cache key.
+	 */
+	public static String getCriterionFingerprint(Criterion criterion) {
+		if (criterion == null) {
+			return StringPool.BLANK;
+		}
+
+		Object wrappedCriterion = ReflectionUtil.getWrappedObject(
+			criterion, "getWrappedCriterion");
+
+		if ((wrappedCriterion == null) ||
+			!isHibernateObject(wrappedCriterion)) {
+
+			return null;
+		}
+
+		StringBuilder sb = new StringBuilder();
+
+		try {
+			if (appendFingerprint(sb, wrappedCriterion, 0)) {
+				return sb.toString();
+			}
+		}
+		catch (Exception e) {
+			if (_log.isDebugEnabled()) {
+				_log.debug("Error fingerprinting " + criterion, e);
+			}
+		}
+
+		return null;
+	}
+
 	public static String getDisplayName(String className, Locale locale) {
 		String displayName = ResourceActionsUtil.getModelResource(
 			locale, className);
@@ -170,8 +577,401 @@ public class ModelUtil {
 		return displayName;
 	}
 
-	protected static Map<String, String> cachedAttributeNames =
+	/**
+	 * Returns the filtered model validator of the model factory, or a count
+	 * based one if the model has no factory
+	 */
+	public static ModelValidator getFilteredModelValidator(Model model) {
+		ModelFactory modelFactory = model.getModelFactory();
+
+		ModelValidator modelValidator = null;
+
+		if (modelFactory != null) {
+			modelValidator = modelFactory.getFilteredModelValidator();
+		}
+
+		if (modelValidator == null) {
+			modelValidator = new CountModelValidator();
+		}
+
+		return modelValidator;
+	}
+
+	public static <T> T getFutureResult(Future<T> future) throws Exception {
+		try {
+			return future.get();
+		}
+		catch (ExecutionException ee) {
+			Throwable cause = ee.getCause();
+
+			if (cause instanceof Exception) {
+				throw (Exception)cause;
+			}
+
+			throw ee;
+		}
+	}
+
+	/**
+	 * Returns the non null values of a single column query result as a long
+	 * array.
+	 */
+	public static long[] getLongValues(List<?> list) {
+		if (list == null) {
+			return new long[0];
+		}
+
+		long[] values = new long[list.size()];
+
+		int i = 0;
+
+		for (Object value : list) {
+			if (value instanceof Object[]) {
+				value = ((Object[])value)[0];
+			}
+
+			if (value == null) {
+				continue;
+			}
+
+			values[i++] = ((Number)value).longValue();
+		}
+
+		if (i < values.length) {
+			return Arrays.copyOf(values, i);
+		}
+
+		return values;
+	}
+
+	/**
+	 * Maps the objects by their primary key, following the order of
+	 * primaryKeys. The keys without object have a null value.
+	 */
+	public static Map<Long, ClassedModel> getPrimaryKeyMap(
+		long[] primaryKeys, List<?> objects) {
+
+		Map<Long, ClassedModel> map = new LinkedHashMap<Long, ClassedModel>(
+			(primaryKeys.length * 4 / 3) + 1);
+
+		for (long primaryKey : primaryKeys) {
+			map.put(primaryKey, null);
+		}
+
+		for (Object object : objects) {
+			ClassedModel classedModel = (ClassedModel)object;
+
+			Object primaryKeyObj = classedModel.getPrimaryKeyObj();
+
+			if (primaryKeyObj instanceof Number) {
+				map.put(((Number)primaryKeyObj).longValue(), classedModel);
+			}
+		}
+
+		return map;
+	}
+
+	public static List<Order> getPrimaryKeyOrders(Model model) {
+		List<Order> orders = new ArrayList<Order>();
+
+		String primaryKeyAttribute = model.getPrimaryKeyAttribute();
+
+		if (Validator.isNotNull(primaryKeyAttribute)) {
+			orders.add(model.getProperty(primaryKeyAttribute).asc());
+		}
+
+		for (String attribute : model.getPrimaryKeyMultiAttribute()) {
+			orders.add(model.getProperty(attribute).asc());
+		}
+
+		if (orders.isEmpty()) {
+			return null;
+		}
+
+		return orders;
+	}
+
+	/**
+	 * Runs the tasks on the executor and returns their results in the same
+	 * order. A single task is run in the calling thread. If any task fails,
+	 * the pending ones are cancelled and its exception is thrown.
+	 */
+	public static <T> List<T> invokeAll(
+			ExecutorService executor, List<Callable<T>> tasks)
+		throws Exception {
+
+		List<T> results = new ArrayList<T>(tasks.size());
+
+		if (tasks.size() == 1) {
+			results.add(tasks.get(0).call());
+
+			return results;
+		}
+
+		List<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+
+		try {
+			for (Callable<T> task : tasks) {
+				futures.add(executor.submit(task));
+			}
+
+			for (Future<T> future : futures) {
+				results.add(getFutureResult(future));
+			}
+		}
+		finally {
+			for (Future<T> future : futures) {
+				future.cancel(true);
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Creates a fixed size thread pool with a bounded queue. When the queue is
+	 * full, tasks are run by the submitting thread.
+	 */
+	public static ExecutorService newExecutorService(
+		String name, int parallelism) {
+
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException(
+				"parallelism must be greater than zero");
+		}
+
+		Thread currentThread = Thread.currentThread();
+
+		ThreadFactory threadFactory = new NamedThreadFactory(
+			name, Thread.NORM_PRIORITY, currentThread.getContextClassLoader());
+
+		return new ThreadPoolExecutor(
+			parallelism, parallelism, 60L, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<Runnable>(parallelism * 16), threadFactory,
+			new ThreadPoolExecutor.CallerRunsPolicy());
+	}
+
+	/**
+	 * Returns the values of the list as a long array, or null if the list
+	 * contains any value that is not a Long, Integer or Short, or mixes them.
+	 */
+	public static long[] toLongArray(List<?> list) {
+		long[] values = new long[list.size()];
+
+		Class<?> clazz = null;
+
+		int i = 0;
+
+		for (Object value : list) {
+			if (!(value instanceof Long) && !(value instanceof Integer) &&
+				!(value instanceof Short)) {
+
+				return null;
+			}
+
+			if (clazz == null) {
+				clazz = value.getClass();
+			}
+			else if (!clazz.equals(value.getClass())) {
+				return null;
+			}
+
+			values[i++] = ((Number)value).longValue();
+		}
+
+		return values;
+	}
+
+	public static Object toNumber(Class<?> numberClass, long value) {
+		if (Integer.class.equals(numberClass)) {
+			return (int)value;
+		}
+
+		if (Short.class.equals(numberClass)) {
+			return (short)value;
+		}
+
+		return value;
+	}
+
+	/**
+	 * Appends the class and the fields of a Hibernate object, recursively, or
+	 * the type and the value of other objects. Returns false if the object is
+	 * too deep or too big, or contains an object whose value can't be
+	 * rendered.
+	 */
+	protected static boolean appendFingerprint(
+			StringBuilder sb, Object object, int depth)
+		throws IllegalAccessException {
+
+		if ((depth > MAX_FINGERPRINT_DEPTH) ||
+			(sb.length() > MAX_FINGERPRINT_LENGTH)) {
+
+			return false;
+		}
+
+		if (object == null) {
+			sb.append("null");
+
+			return true;
+		}
+
+		Class<?> clazz = object.getClass();
+
+		if (object instanceof Date) {
+			sb.append(clazz.getName());
+			sb.append(':');
+			sb.append(((Date)object).getTime());
+
+			return true;
+		}
+
+		if (object instanceof CharSequence) {
+			String string = object.toString();
+
+			sb.append(clazz.getName());
+			sb.append(':');
+			sb.append(string.length());
+			sb.append(':');
+			sb.append(string);
+
+			return true;
+		}
+
+		if ((object instanceof Boolean) || (object instanceof Character) ||
+			(object instanceof Enum) || (object instanceof Number)) {
+
+			sb.append(clazz.getName());
+			sb.append(':');
+			sb.append(object);
+
+			return true;
+		}
+
+		if (object instanceof Class) {
+			sb.append(((Class<?>)object).getName());
+
+			return true;
+		}
+
+		if (clazz.isArray()) {
+			int length = Array.getLength(object);
+
+			sb.append('[');
+
+			for (int i = 0; i < length; i++) {
+				if (!appendFingerprint(sb, Array.get(object, i), depth + 1)) {
+					return false;
+				}
+
+				sb.append(',');
+			}
+
+			sb.append(']');
+
+			return true;
+		}
+
+		if (object instanceof Collection) {
+			sb.append('[');
+
+			for (Object element : (Collection<?>)object) {
+				if (!appendFingerprint(sb, element, depth + 1)) {
+					return false;
+				}
+
+				sb.append(',');
+			}
+
+			sb.append(']');
+
+			return true;
+		}
+
+		if (!isHibernateObject(object)) {
+			return false;
+		}
+
+		sb.append(clazz.getName());
+
+		if (clazz.getName().startsWith("org.hibernate.type.")) {
+
+			// Types are stateless, the string of types that don't override
+			// toString only causes cache misses between different instances
+
+			sb.append(':');
+			sb.append(object);
+
+			return true;
+		}
+
+		sb.append('(');
+
+		for (Field field : getFingerprintFields(clazz)) {
+			sb.append(field.getName());
+			sb.append('=');
+
+			if (!appendFingerprint(sb, field.get(object), depth + 1)) {
+				return false;
+			}
+
+			sb.append(',');
+		}
+
+		sb.append(')');
+
+		return true;
+	}
+
+	/**
+	 * Instance fields of the class and its superclasses, cached by class
+	 */
+	protected static Field[] getFingerprintFields(Class<?> clazz) {
+		Field[] fields = fingerprintFields.get(clazz);
+
+		if (fields != null) {
+			return fields;
+		}
+
+		List<Field> fieldList = new ArrayList<Field>();
+
+		for (Class<?> aux = clazz; aux != null; aux = aux.getSuperclass()) {
+			for (Field field : aux.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+
+				if (Modifier.isStatic(modifiers) ||
+					Modifier.isTransient(modifiers)) {
+
+					continue;
+				}
+
+				field.setAccessible(true);
+
+				fieldList.add(field);
+			}
+		}
+
+		fields = fieldList.toArray(new Field[fieldList.size()]);
+
+		fingerprintFields.put(clazz, fields);
+
+		return fields;
+	}
+
+	protected static boolean isHibernateObject(Object object) {
+		return object.getClass().getName().startsWith("org.hibernate.");
+	}
+
+	protected static final int MAX_CACHED_ATTRIBUTE_NAMES = 10000;
+
+	protected static final int MAX_FINGERPRINT_DEPTH = 32;
+
+	protected static final int MAX_FINGERPRINT_LENGTH = 65536;
+
+	protected static ConcurrentMap<String, String> cachedAttributeNames =
 		new ConcurrentHashMap<String, String>();
+	protected static ConcurrentMap<Class<?>, Field[]> fingerprintFields =
+		new ConcurrentHashMap<Class<?>, Field[]>();
 
 	private static Log _log = LogFactoryUtil.getLog(ModelUtil.class);
 
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Result of the resolution of a collection of models by
+ * ModelFactory.warmUp, with the time spent on each one
+ *
+ * @author Jorge Díaz
+ */
+public class ModelWarmUpResult {
+
+	/**
+	 * Exceptions thrown resolving models, by class name
+	 */
+	public Map<String, Throwable> getErrors() {
+		return Collections.unmodifiableMap(errors);
+	}
+
+	/**
+	 * Resolved models, by class name
+	 */
+	public Map<String, Model> getModels() {
+		return Collections.unmodifiableMap(models);
+	}
+
+	/**
+	 * Time in milliseconds spent resolving each model, by class name
+	 */
+	public Map<String, Long> getTimings() {
+		return Collections.unmodifiableMap(timings);
+	}
+
+	/**
+	 * Total elapsed time in milliseconds
+	 */
+	public long getTotalTime() {
+		return totalTime;
+	}
+
+	/**
+	 * Class names that could not be resolved to a model, including the ones
+	 * that threw an exception
+	 */
+	public List<String> getUnresolvedClassNames() {
+		List<String> unresolvedClassNames = new ArrayList<String>(
+			timings.keySet());
+
+		unresolvedClassNames.removeAll(models.keySet());
+
+		Collections.sort(unresolvedClassNames);
+
+		return unresolvedClassNames;
+	}
+
+	@Override
+	public String toString() {
+		return "{models=" + models.size() + ", unresolved=" +
+			(timings.size() - models.size()) + ", errors=" + errors.size() +
+				", totalTime=" + totalTime + "ms}";
+	}
+
+	protected void addError(String className, Throwable t) {
+		errors.put(className, t);
+	}
+
+	protected void addModel(String className, Model model) {
+		models.put(className, model);
+	}
+
+	protected void addTiming(String className, long time) {
+		timings.put(className, time);
+	}
+
+	protected void setTotalTime(long totalTime) {
+		this.totalTime = totalTime;
+	}
+
+	private Map<String, Throwable> errors =
+		new ConcurrentHashMap<String, Throwable>();
+	private Map<String, Model> models = new ConcurrentHashMap<String, Model>();
+	private Map<String, Long> timings = new ConcurrentHashMap<String, Long>();
+	private long totalTime = 0;
+
+}
@@ -17,18 +17,22 @@ package jorgediazest.util.model;
 import com.liferay.portal.kernel.dao.orm.Criterion;
 import com.liferay.portal.kernel.dao.orm.Order;
 import com.liferay.portal.kernel.dao.orm.Projection;
-import com.liferay.portal.kernel.dao.orm.ProjectionFactoryUtil;
 import com.liferay.portal.kernel.dao.orm.ProjectionList;
 import com.liferay.portal.kernel.dao.orm.Property;
 import com.liferay.portal.kernel.log.Log;
 import com.liferay.portal.kernel.log.LogFactoryUtil;
+import com.liferay.portal.kernel.model.ClassedModel;
 import com.liferay.portal.kernel.util.Validator;
 
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
+import jorgediazest.util.collection.LongLongHashMap;
 import jorgediazest.util.service.Service;
 import jorgediazest.util.service.ServiceWrapper;
 import jorgediazest.util.table.TableInfo;
@@ -75,21 +79,58 @@ public class ModelWrapper implements Model, Cloneable {
 
 	@Override
 	public long count(Criterion criterion) {
-		try {
-			List<?> list = executeDynamicQuery(
-				criterion, ProjectionFactoryUtil.rowCount());
-
-			if (list != null) {
-				return (Long)list.get(0);
-			}
+		if (serviceWrapper != null) {
+			criterion = ModelUtil.generateConjunctionCriterion(
+				criterion, serviceWrapper.getCriterion());
 		}
-		catch (Exception e) {
-			_log.error(
-				"Error executing count for " + getName() + ": " +
-					e.getMessage());
+
+		return model.count(criterion);
+	}
+
+	@Override
+	public Map<Object, Long> countByGroup(
+		Criterion criterion, String attribute) {
+
+		return ModelUtil.countByGroup(this, criterion, attribute);
+	}
+
+	@Override
+	public LongLongHashMap countByLongGroup(
+		Criterion criterion, String attribute) {
+
+		return ModelUtil.countByLongGroup(this, criterion, attribute);
+	}
+
+	@Override
+	public <T> long countChunked(
+		Criterion criterion, String attribute, List<T> values,
+		ExecutorService executor) {
+
+		return ModelUtil.countChunked(
+			this, criterion, attribute, values, executor);
+	}
+
+	@Override
+	public <T> List<?> executeChunkedDynamicQuery(
+			Criterion criterion, Projection projection, String attribute,
+			List<T> values, ExecutorService executor)
+		throws Exception {
+
+		return ModelUtil.executeChunkedDynamicQuery(
+			this, criterion, projection, attribute, values, executor);
+	}
+
+	@Override
+	public ColumnarResultSet executeColumnarQuery(
+			Criterion criterion, String[] attributes, int pageSize)
+		throws Exception {
+
+		if (serviceWrapper != null) {
+			criterion = ModelUtil.generateConjunctionCriterion(
+				criterion, serviceWrapper.getCriterion());
 		}
 
-		return -1;
+		return model.executeColumnarQuery(criterion, attributes, pageSize);
 	}
 
 	@Override
@@ -131,6 +172,66 @@ public class ModelWrapper implements Model, Cloneable {
 			getService(), criterion, projection, orders);
 	}
 
+	@Override
+	public KeysetPage executeKeysetQuery(
+			Criterion criterion, String[] attributes, Object[] lastKey,
+			int pageSize)
+		throws Exception {
+
+		if (serviceWrapper != null) {
+			criterion = ModelUtil.generateConjunctionCriterion(
+				criterion, serviceWrapper.getCriterion());
+		}
+
+		return model.executeKeysetQuery(
+			criterion, attributes, lastKey, pageSize);
+	}
+
+	@Override
+	public long[] executeLongProjectionQuery(
+			Criterion criterion, String attribute)
+		throws Exception {
+
+		return executeLongProjectionQuery(criterion, attribute, 0);
+	}
+
+	@Override
+	public long[] executeLongProjectionQuery(
+			Criterion criterion, String attribute, int pageSize)
+		throws Exception {
+
+		if (serviceWrapper != null) {
+			criterion = ModelUtil.generateConjunctionCriterion(
+				criterion, serviceWrapper.getCriterion());
+		}
+
+		return model.executeLongProjectionQuery(
+			criterion, attribute, pageSize);
+	}
+
+	@Override
+	public Map<Long, ClassedModel> fetchObjects(long[] primaryKeys)
+		throws Exception {
+
+		String primaryKeyAttribute = getPrimaryKeyAttribute();
+
+		if (Validator.isNull(primaryKeyAttribute)) {
+			throw new UnsupportedOperationException(
+				getName() + " has a multi-attribute primary key");
+		}
+
+		if ((primaryKeys == null) || (primaryKeys.length == 0)) {
+			return new LinkedHashMap<Long, ClassedModel>();
+		}
+
+		Criterion criterion = getAttributeCriterion(
+			primaryKeyAttribute, primaryKeys);
+
+		List<?> list = executeDynamicQuery(criterion);
+
+		return ModelUtil.getPrimaryKeyMap(primaryKeys, list);
+	}
+
 	@Override
 	public Class<?> getAttributeClass(String name) {
 		return model.getAttributeClass(name);
@@ -141,6 +242,11 @@ public class ModelWrapper implements Model, Cloneable {
 		return model.getAttributeCriterion(attribute, list);
 	}
 
+	@Override
+	public Criterion getAttributeCriterion(String attribute, long[] values) {
+		return model.getAttributeCriterion(attribute, values);
+	}
+
 	@Override
 	public <T> Criterion getAttributeCriterion(String attribute, T value) {
 		return model.getAttributeCriterion(attribute, value);
@@ -317,14 +423,45 @@ public class ModelWrapper implements Model, Cloneable {
 		return model.isWorkflowEnabled();
 	}
 
+	@Override
+	public Iterator<?> iterateDynamicQuery(Criterion criterion, int pageSize) {
+		return iterateDynamicQuery(criterion, null, null, pageSize);
+	}
+
+	@Override
+	public Iterator<?> iterateDynamicQuery(
+		Criterion criterion, Projection projection, List<Order> orders,
+		int pageSize) {
+
+		if ((orders == null) && (projection == null)) {
+			orders = ModelUtil.getPrimaryKeyOrders(this);
+		}
+
+		return new DynamicQueryIterator(
+			getService(), criterion, projection, orders, pageSize);
+	}
+
 	@Override
 	public boolean modelEqualsClass(Class<?> clazz) {
 		return model.modelEqualsClass(clazz);
 	}
 
 	public void setCriterion(Criterion criterion) {
-		if (count(criterion)==-1) {
-			throw new IllegalArgumentException();
+		setCriterion(criterion, true);
+	}
+
+	/**
+	 * Sets the criterion, validating it with the filtered model validator of
+	 * the model factory if validate is true
+	 */
+	public void setCriterion(Criterion criterion, boolean validate) {
+		if (validate) {
+			ModelValidator modelValidator =
+				ModelUtil.getFilteredModelValidator(model);
+
+			if (!modelValidator.isValid(model, criterion)) {
+				throw new IllegalArgumentException();
+			}
 		}
 
 		if (serviceWrapper == null) {
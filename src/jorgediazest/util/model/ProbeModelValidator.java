@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.model;
+
+import com.liferay.portal.kernel.dao.orm.Criterion;
+import com.liferay.portal.kernel.dao.orm.Projection;
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+import com.liferay.portal.kernel.util.Validator;
+
+import java.util.regex.Pattern;
+
+import jorgediazest.util.cache.TimedLRUCache;
+
+/**
+ * Validates models executing a query that returns at most one primary key.
+ *
+ * If a cache is configured, successful probes are cached by model and
+ * criterion shape, that is the criterion fingerprint with its numeric values
+ * removed, so criteria that only differ in their numeric values are validated
+ * once. Failed probes are not cached, as they can be caused by a transient
+ * error like a timeout.
+ *
+ * @author Jorge Díaz
+ */
+public class ProbeModelValidator implements ModelValidator {
+
+	public ProbeModelValidator() {
+		this.cache = null;
+	}
+
+	public ProbeModelValidator(int cacheMaxSize, long cacheTimeToLive) {
+		this.cache = new TimedLRUCache<String, Boolean>(
+			cacheMaxSize, cacheTimeToLive);
+	}
+
+	public TimedLRUCache<String, Boolean> getCache() {
+		return cache;
+	}
+
+	@Override
+	public boolean isValid(Model model, Criterion criterion) {
+		if (cache == null) {
+			return probe(model, criterion);
+		}
+
+		String key = getCacheKey(model, criterion);
+
+		if (key == null) {
+			return probe(model, criterion);
+		}
+
+		if (cache.get(key) != null) {
+			return true;
+		}
+
+		boolean valid = probe(model, criterion);
+
+		if (valid) {
+			cache.put(key, Boolean.TRUE);
+		}
+
+		return valid;
+	}
+
+	/**
+	 * Returns null if the criterion can't be fingerprinted, see
+	 * ModelUtil.getCriterionFingerprint
+	 */
+	protected String getCacheKey(Model model, Criterion criterion) {
+		String fingerprint = ModelUtil.getCriterionFingerprint(criterion);
+
+		if (fingerprint == null) {
+			return null;
+		}
+
+		String shape = numericValuePattern.matcher(fingerprint).replaceAll("?");
+
+		return model.getClassName() + "#" + shape;
+	}
+
+	protected boolean probe(Model model, Criterion criterion) {
+		Projection projection = null;
+
+		String primaryKeyAttribute = model.getPrimaryKeyAttribute();
+
+		if (Validator.isNotNull(primaryKeyAttribute)) {
+			projection = model.getPropertyProjection(primaryKeyAttribute);
+		}
+
+		try {
+			ModelUtil.executeDynamicQuery(
+				model.getService(), criterion, projection, null, 0, 1);
+
+			return true;
+		}
+		catch (Exception e) {
+			_log.error(
+				"Error validating " + model.getName() + ": " + e.getMessage());
+		}
+
+		return false;
+	}
+
+	protected static Pattern numericValuePattern = Pattern.compile(
+		"(?<![\\w.])-?\\d+(\\.\\d+)?");
+
+	protected TimedLRUCache<String, Boolean> cache;
+
+	private static Log _log = LogFactoryUtil.getLog(ProbeModelValidator.class);
+
+}
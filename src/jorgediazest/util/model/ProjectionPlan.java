@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.model;
+
+import com.liferay.portal.kernel.dao.orm.Projection;
+import com.liferay.portal.kernel.dao.orm.ProjectionFactoryUtil;
+import com.liferay.portal.kernel.dao.orm.ProjectionList;
+import com.liferay.portal.kernel.util.Validator;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parsed and validated form of an array of projection attributes, like
+ * {"groupId", "count(pk)"}, so the projections can be built again without
+ * parsing them. It stores for each valid attribute its operation and its
+ * resolved property name, which includes the "primaryKey." prefix for the
+ * attributes of composite primary keys.
+ *
+ * @author Jorge Díaz
+ */
+public class ProjectionPlan {
+
+	/**
+	 * Creates the projection of the operation, or null if the operation is
+	 * not supported. A null operation means a plain property projection.
+	 */
+	public static Projection newProjection(String op, String propertyName) {
+		if ("rowCount".equals(op)) {
+			return ProjectionFactoryUtil.rowCount();
+		}
+
+		if (Validator.isNull(op)) {
+			return ProjectionFactoryUtil.property(propertyName);
+		}
+		else if ("count".equals(op)) {
+			return ProjectionFactoryUtil.count(propertyName);
+		}
+		else if ("countDistinct".equals(op)) {
+			return ProjectionFactoryUtil.countDistinct(propertyName);
+		}
+		else if ("groupProperty".equals(op)) {
+			return ProjectionFactoryUtil.groupProperty(propertyName);
+		}
+		else if ("max".equals(op)) {
+			return ProjectionFactoryUtil.max(propertyName);
+		}
+		else if ("min".equals(op)) {
+			return ProjectionFactoryUtil.min(propertyName);
+		}
+		else if ("sum".equals(op)) {
+			return ProjectionFactoryUtil.sum(propertyName);
+		}
+
+		return null;
+	}
+
+	public ProjectionPlan(
+		String[] ops, String[] propertyNames, Class<?>[] columnClasses,
+		List<String> validAttributes, List<String> notValidAttributes) {
+
+		this.ops = ops;
+		this.propertyNames = propertyNames;
+		this.columnClasses = columnClasses;
+		this.validAttributes = Collections.unmodifiableList(validAttributes);
+		this.notValidAttributes = Collections.unmodifiableList(
+			notValidAttributes);
+	}
+
+	/**
+	 * Class of the values returned by each valid projection
+	 */
+	public Class<?>[] getColumnClasses() {
+		return columnClasses;
+	}
+
+	public List<String> getNotValidAttributes() {
+		return notValidAttributes;
+	}
+
+	public List<String> getValidAttributes() {
+		return validAttributes;
+	}
+
+	/**
+	 * Returns true if any projection is an aggregation, like count or
+	 * groupProperty, instead of a plain property
+	 */
+	public boolean hasAggregations() {
+		for (String op : ops) {
+			if (op != null) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Number of valid projections
+	 */
+	public int size() {
+		return ops.length;
+	}
+
+	/**
+	 * Builds a new projection list, or returns null if there are no valid
+	 * projections. A single projection is added twice so the results are
+	 * returned as arrays, like with several projections.
+	 */
+	public ProjectionList toProjectionList() {
+		if (ops.length == 0) {
+			return null;
+		}
+
+		ProjectionList projectionList = ProjectionFactoryUtil.projectionList();
+
+		for (int i = 0; i < ops.length; i++) {
+			Projection projection = newProjection(ops[i], propertyNames[i]);
+
+			projectionList.add(projection);
+
+			if (ops.length == 1) {
+				projectionList.add(projection);
+			}
+		}
+
+		return projectionList;
+	}
+
+	@Override
+	public String toString() {
+		return "{valid=" + validAttributes + ", notValid=" +
+			notValidAttributes + "}";
+	}
+
+	private final Class<?>[] columnClasses;
+	private final List<String> notValidAttributes;
+	private final String[] ops;
+	private final String[] propertyNames;
+	private final List<String> validAttributes;
+
+}
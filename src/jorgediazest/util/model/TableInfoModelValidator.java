@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.model;
+
+import com.liferay.portal.kernel.dao.orm.Criterion;
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import jorgediazest.util.table.TableInfo;
+
+/**
+ * Validates models checking only their table metadata, without executing any
+ * query. Criteria are not validated, any error on them is raised on the first
+ * query.
+ *
+ * @author Jorge Díaz
+ */
+public class TableInfoModelValidator implements ModelValidator {
+
+	@Override
+	public boolean isValid(Model model, Criterion criterion) {
+		try {
+			TableInfo tableInfo = model.getTableInfo();
+
+			if ((tableInfo == null) || (tableInfo.getName() == null)) {
+				return false;
+			}
+
+			String[] attributesName = tableInfo.getAttributesName();
+
+			if ((attributesName == null) || (attributesName.length == 0)) {
+				return false;
+			}
+
+			return true;
+		}
+		catch (Exception e) {
+			_log.error(
+				"Error validating " + model.getName() + ": " + e.getMessage());
+		}
+
+		return false;
+	}
+
+	private static Log _log = LogFactoryUtil.getLog(
+		TableInfoModelValidator.class);
+
+}
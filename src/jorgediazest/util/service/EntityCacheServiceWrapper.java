@@ -0,0 +1,310 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.service;
+
+import com.liferay.portal.kernel.model.BaseModel;
+import com.liferay.portal.kernel.model.ClassedModel;
+
+import java.io.Serializable;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jorgediazest.util.cache.TimedLRUCache;
+
+/**
+ * Service wrapper with a read-through cache of the entities returned by
+ * fetchObject and fetchObjects. The cached entities are invalidated when they
+ * are added, updated or deleted through this wrapper, changes done by other
+ * means are only seen after the cache time to live. The cache can be shared
+ * by several wrappers of the same model, see ServiceUtil.setEntityCache.
+ *
+ * Fetched entities are not cached if any entity was invalidated during the
+ * fetch, as they could have been read before the change.
+ *
+ * @author Jorge Díaz
+ */
+public class EntityCacheServiceWrapper extends ServiceWrapper {
+
+	public EntityCacheServiceWrapper(
+		Service service, TimedLRUCache<Long, ClassedModel> entityCache) {
+
+		super(service);
+
+		this.entityCache = entityCache;
+	}
+
+	@Override
+	public ClassedModel addObject(ClassedModel object) {
+		ClassedModel result = super.addObject(object);
+
+		invalidate(result);
+
+		return result;
+	}
+
+	@Override
+	public ServiceBatchResult addObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		ServiceBatchResult result = super.addObjects(objects, batchSize);
+
+		invalidate(result.getResults());
+
+		return result;
+	}
+
+	@Override
+	public EntityCacheServiceWrapper clone() {
+		EntityCacheServiceWrapper serviceWrapper =
+			new EntityCacheServiceWrapper(service, entityCache);
+
+		serviceWrapper.setCriterion(criterion);
+
+		return serviceWrapper;
+	}
+
+	@Override
+	public ClassedModel deleteObject(ClassedModel object) {
+		try {
+			return super.deleteObject(object);
+		}
+		finally {
+			invalidate(object);
+		}
+	}
+
+	@Override
+	public ClassedModel deleteObject(long primaryKey) {
+		try {
+			return super.deleteObject(primaryKey);
+		}
+		finally {
+			entityCache.remove(primaryKey);
+		}
+	}
+
+	@Override
+	public ServiceBatchResult deleteObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		try {
+			return super.deleteObjects(objects, batchSize);
+		}
+		finally {
+			invalidate(objects);
+		}
+	}
+
+	@Override
+	public ClassedModel fetchObject(long primaryKey) {
+		ClassedModel object = entityCache.get(primaryKey);
+
+		if (object != null) {
+			return copy(object);
+		}
+
+		long generation = entityCache.getGeneration();
+
+		object = super.fetchObject(primaryKey);
+
+		if (object != null) {
+			entityCache.put(primaryKey, copy(object), generation);
+		}
+
+		return object;
+	}
+
+	/**
+	 * Returns the cached entities and fetches the rest with one query
+	 */
+	@Override
+	public Map<Long, ClassedModel> fetchObjects(long[] primaryKeys)
+		throws Exception {
+
+		if ((primaryKeys == null) || (primaryKeys.length == 0)) {
+			return super.fetchObjects(primaryKeys);
+		}
+
+		Map<Long, ClassedModel> map = new LinkedHashMap<Long, ClassedModel>(
+			(primaryKeys.length * 4 / 3) + 1);
+
+		long[] missingKeys = new long[primaryKeys.length];
+		int numMissingKeys = 0;
+
+		for (long primaryKey : primaryKeys) {
+			ClassedModel object = entityCache.get(primaryKey);
+
+			if (object == null) {
+				missingKeys[numMissingKeys++] = primaryKey;
+			}
+			else {
+				object = copy(object);
+			}
+
+			map.put(primaryKey, object);
+		}
+
+		if (numMissingKeys == 0) {
+			return map;
+		}
+
+		long[] fetchKeys = new long[numMissingKeys];
+
+		System.arraycopy(missingKeys, 0, fetchKeys, 0, numMissingKeys);
+
+		long generation = entityCache.getGeneration();
+
+		Map<Long, ClassedModel> fetchedObjects = super.fetchObjects(fetchKeys);
+
+		for (Map.Entry<Long, ClassedModel> entry : fetchedObjects.entrySet()) {
+			ClassedModel object = entry.getValue();
+
+			if (object != null) {
+				entityCache.put(entry.getKey(), copy(object), generation);
+
+				map.put(entry.getKey(), object);
+			}
+		}
+
+		return map;
+	}
+
+	public TimedLRUCache<Long, ClassedModel> getEntityCache() {
+		return entityCache;
+	}
+
+	/**
+	 * Rough estimation, in bytes, of the memory used by the cached entities.
+	 * It is extrapolated from the attributes of a sample of them.
+	 */
+	public long getEstimatedMemoryFootprint() {
+		List<ClassedModel> objects = entityCache.values();
+
+		if (objects.isEmpty()) {
+			return 0;
+		}
+
+		int numSamples = Math.min(objects.size(), MEMORY_FOOTPRINT_SAMPLES);
+
+		int step = objects.size() / numSamples;
+
+		long sampleSize = 0;
+
+		for (int i = 0; i < numSamples; i++) {
+			sampleSize += estimateSize(objects.get(i * step));
+		}
+
+		return (sampleSize * objects.size()) / numSamples;
+	}
+
+	public double getHitRatio() {
+		return entityCache.getHitRatio();
+	}
+
+	@Override
+	public ClassedModel updateObject(ClassedModel object) {
+		try {
+			return super.updateObject(object);
+		}
+		finally {
+			invalidate(object);
+		}
+	}
+
+	@Override
+	public ServiceBatchResult updateObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		try {
+			return super.updateObjects(objects, batchSize);
+		}
+		finally {
+			invalidate(objects);
+		}
+	}
+
+	/**
+	 * Cached entities are copied, if they support it, so callers modifying
+	 * the returned object don't modify the cached one
+	 */
+	protected static ClassedModel copy(ClassedModel object) {
+		if (object instanceof BaseModel) {
+			return (ClassedModel)((BaseModel<?>)object).clone();
+		}
+
+		return object;
+	}
+
+	protected static long estimateSize(ClassedModel object) {
+		long size = ENTRY_OVERHEAD;
+
+		Map<String, Object> attributes = object.getModelAttributes();
+
+		if (attributes == null) {
+			return size;
+		}
+
+		for (Object value : attributes.values()) {
+			if (value instanceof String) {
+				size += STRING_OVERHEAD + (2 * ((String)value).length());
+			}
+			else if ((value instanceof Number) || (value instanceof Date) ||
+					 (value instanceof Boolean)) {
+
+				size += BOXED_VALUE_SIZE;
+			}
+			else {
+				size += REFERENCE_SIZE;
+			}
+		}
+
+		return size;
+	}
+
+	protected void invalidate(ClassedModel object) {
+		if (object == null) {
+			return;
+		}
+
+		Serializable primaryKeyObj = object.getPrimaryKeyObj();
+
+		if (primaryKeyObj instanceof Number) {
+			entityCache.remove(((Number)primaryKeyObj).longValue());
+		}
+	}
+
+	protected void invalidate(Collection<? extends ClassedModel> objects) {
+		for (ClassedModel object : objects) {
+			invalidate(object);
+		}
+	}
+
+	protected static final int BOXED_VALUE_SIZE = 24;
+
+	protected static final int ENTRY_OVERHEAD = 96;
+
+	protected static final int MEMORY_FOOTPRINT_SAMPLES = 100;
+
+	protected static final int REFERENCE_SIZE = 16;
+
+	protected static final int STRING_OVERHEAD = 48;
+
+	protected TimedLRUCache<Long, ClassedModel> entityCache;
+
+}
@@ -17,7 +17,9 @@ package jorgediazest.util.service;
 import com.liferay.portal.kernel.dao.orm.DynamicQuery;
 import com.liferay.portal.kernel.model.ClassedModel;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import jorgediazest.util.table.TableInfo;
 
@@ -28,17 +30,47 @@ public interface Service {
 
 	public ClassedModel addObject(ClassedModel object);
 
+	/**
+	 * Adds the objects in batches of batchSize, each one in a transaction if
+	 * possible, see ServiceBatchResult.
+	 *
+	 * In ServicePersistedModelImpl each batch runs in a new transaction,
+	 * independent of the transaction of the caller, if any. The batches are
+	 * committed even if the caller transaction is rolled back later, and
+	 * they wait for the row locks held by the caller transaction, so calling
+	 * it from a transaction that has modified the same objects deadlocks. Call
+	 * it outside of any transaction, or after committing the changes of the
+	 * same objects.
+	 */
+	public ServiceBatchResult addObjects(
+		Collection<? extends ClassedModel> objects, int batchSize);
+
 	public ClassedModel createObject(long primaryKey);
 
 	public ClassedModel deleteObject(ClassedModel object);
 
 	public ClassedModel deleteObject(long primaryKey);
 
+	/**
+	 * Deletes the objects in batches of batchSize, with the same transaction
+	 * handling as addObjects
+	 */
+	public ServiceBatchResult deleteObjects(
+		Collection<? extends ClassedModel> objects, int batchSize);
+
 	public List<?> executeDynamicQuery(DynamicQuery dynamicQuery)
 		throws Exception;
 
 	public ClassedModel fetchObject(long primaryKey);
 
+	/**
+	 * Fetches the objects with the primary keys with one query. The returned
+	 * map follows the order of primaryKeys and has a null value for the keys
+	 * that were not found.
+	 */
+	public Map<Long, ClassedModel> fetchObjects(long[] primaryKeys)
+		throws Exception;
+
 	public ClassLoader getClassLoader();
 
 	public String getClassName();
@@ -57,4 +89,11 @@ public interface Service {
 
 	public ClassedModel updateObject(ClassedModel object);
 
+	/**
+	 * Updates the objects in batches of batchSize, with the same transaction
+	 * handling as addObjects
+	 */
+	public ServiceBatchResult updateObjects(
+		Collection<? extends ClassedModel> objects, int batchSize);
+
 }
\ No newline at end of file
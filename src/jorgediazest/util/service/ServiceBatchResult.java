@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.service;
+
+import com.liferay.portal.kernel.model.ClassedModel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Result of a batch operation of a service: the objects returned by the
+ * service for the items that succeeded, and the items that failed with their
+ * error.
+ *
+ * @author Jorge Díaz
+ */
+public class ServiceBatchResult {
+
+	public void addError(ClassedModel object, Throwable error) {
+		errors.add(new ItemError(object, error));
+	}
+
+	public void addResult(ClassedModel result) {
+		results.add(result);
+	}
+
+	public void addResults(Collection<ClassedModel> results) {
+		this.results.addAll(results);
+	}
+
+	public int getBatchCount() {
+		return batchCount;
+	}
+
+	public int getErrorCount() {
+		return errors.size();
+	}
+
+	public List<ItemError> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Objects returned by the service for the items that succeeded. The items
+	 * of a batch that was retried one by one are in the order they were
+	 * retried, after the results of the batches that succeeded before.
+	 */
+	public List<ClassedModel> getResults() {
+		return results;
+	}
+
+	/**
+	 * Number of batches whose transaction failed, and whose items were
+	 * retried one by one
+	 */
+	public int getRetriedBatchCount() {
+		return retriedBatchCount;
+	}
+
+	public int getSuccessCount() {
+		return results.size();
+	}
+
+	public boolean hasErrors() {
+		return !errors.isEmpty();
+	}
+
+	public void incrementBatchCount() {
+		batchCount++;
+	}
+
+	public void incrementRetriedBatchCount() {
+		retriedBatchCount++;
+	}
+
+	@Override
+	public String toString() {
+		return "{batches=" + batchCount + ", retriedBatches=" +
+			retriedBatchCount + ", success=" + results.size() + ", errors=" +
+				errors.size() + "}";
+	}
+
+	public static class ItemError {
+
+		public ItemError(ClassedModel object, Throwable error) {
+			this.object = object;
+			this.error = error;
+		}
+
+		public Throwable getError() {
+			return error;
+		}
+
+		public ClassedModel getObject() {
+			return object;
+		}
+
+		@Override
+		public String toString() {
+			return object + ": " + error;
+		}
+
+		private Throwable error;
+		private ClassedModel object;
+
+	}
+
+	private int batchCount = 0;
+	private List<ItemError> errors = new ArrayList<ItemError>();
+	private int retriedBatchCount = 0;
+	private List<ClassedModel> results = new ArrayList<ClassedModel>();
+
+}
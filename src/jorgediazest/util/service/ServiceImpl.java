@@ -14,15 +14,23 @@
 
 package jorgediazest.util.service;
 
+import com.liferay.portal.kernel.dao.orm.Criterion;
+import com.liferay.portal.kernel.dao.orm.DynamicQuery;
+import com.liferay.portal.kernel.dao.orm.PropertyFactoryUtil;
 import com.liferay.portal.kernel.log.Log;
 import com.liferay.portal.kernel.log.LogFactoryUtil;
 import com.liferay.portal.kernel.model.ClassedModel;
 import com.liferay.portal.kernel.util.StringPool;
 import com.liferay.portal.kernel.util.StringUtil;
+import com.liferay.portal.kernel.util.Validator;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import jorgediazest.util.model.ModelUtil;
 import jorgediazest.util.reflection.ReflectionUtil;
 import jorgediazest.util.table.TableInfo;
 
@@ -35,6 +43,12 @@ public abstract class ServiceImpl implements Service {
 		throw new UnsupportedOperationException();
 	}
 
+	public ServiceBatchResult addObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		throw new UnsupportedOperationException();
+	}
+
 	public ClassedModel createObject(long primaryKey) {
 		throw new UnsupportedOperationException();
 	}
@@ -47,10 +61,44 @@ public abstract class ServiceImpl implements Service {
 		throw new UnsupportedOperationException();
 	}
 
+	public ServiceBatchResult deleteObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		throw new UnsupportedOperationException();
+	}
+
 	public ClassedModel fetchObject(long primaryKey) {
 		throw new UnsupportedOperationException();
 	}
 
+	public Map<Long, ClassedModel> fetchObjects(long[] primaryKeys)
+		throws Exception {
+
+		TableInfo tableInfo = getTableInfo();
+
+		String primaryKeyAttribute = tableInfo.getPrimaryKeyAttribute();
+
+		if (Validator.isNull(primaryKeyAttribute)) {
+			throw new UnsupportedOperationException(
+				className + " has a multi-attribute primary key");
+		}
+
+		if ((primaryKeys == null) || (primaryKeys.length == 0)) {
+			return new LinkedHashMap<Long, ClassedModel>();
+		}
+
+		Criterion criterion = ModelUtil.generateRangeCriterion(
+			PropertyFactoryUtil.forName(primaryKeyAttribute),
+			tableInfo.getAttributeClass(primaryKeyAttribute), primaryKeys);
+
+		DynamicQuery dynamicQuery = newDynamicQuery();
+
+		dynamicQuery.add(criterion);
+
+		return ModelUtil.getPrimaryKeyMap(
+			primaryKeys, executeDynamicQuery(dynamicQuery));
+	}
+
 	public abstract ClassLoader getClassLoader();
 
 	public String getClassName() {
@@ -66,6 +114,10 @@ public abstract class ServiceImpl implements Service {
 			return null;
 		}
 
+		if (liferayModelImplClass == null) {
+			liferayModelImplClass = getLiferayModelImplClassFromSnapshot();
+		}
+
 		if (liferayModelImplClass == null) {
 			String liferayModelImpl = ServiceUtil.getLiferayModelImplClassName(
 				this);
@@ -88,33 +140,44 @@ public abstract class ServiceImpl implements Service {
 	}
 
 	public List<String> getMappingTables() {
-		List<String> mappingTablesFields =
-			ReflectionUtil.getLiferayModelImplMappingTablesFields(
-				getLiferayModelImplClass());
+		ServiceMetadataSnapshot.Entry entry = getMetadataSnapshotEntry();
 
-		List<String> mappingTables = new ArrayList<String>(
-			mappingTablesFields.size());
+		if (entry != null) {
+			return entry.getMappingTables();
+		}
 
-		for (String mappingTablesField : mappingTablesFields) {
-			String mappingTable = StringUtil.replaceFirst(
-				mappingTablesField, "MAPPING_TABLE_", StringPool.BLANK);
+		return getLiferayModelImplMappingTables();
+	}
 
-			mappingTable = StringUtil.replace(
-				mappingTable, "_NAME", StringPool.BLANK);
+	public TableInfo getTableInfo() {
+		return getTableInfo(null);
+	}
 
-			mappingTable = StringUtil.toLowerCase(mappingTable);
+	public TableInfo getTableInfo(String mappingTable) {
+		ServiceMetadataSnapshot.Entry entry = getMetadataSnapshotEntry();
 
-			mappingTables.add(mappingTable);
+		if (entry != null) {
+			TableInfo tableInfo = entry.getTableInfo(mappingTable);
+
+			if (tableInfo != null) {
+				return tableInfo;
+			}
 		}
 
-		return mappingTables;
+		return createTableInfo(mappingTable);
 	}
 
-	public TableInfo getTableInfo() {
-		return getTableInfo(null);
+	public ClassedModel updateObject(ClassedModel object) {
+		throw new UnsupportedOperationException();
 	}
 
-	public TableInfo getTableInfo(String mappingTable) {
+	public ServiceBatchResult updateObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		throw new UnsupportedOperationException();
+	}
+
+	protected TableInfo createTableInfo(String mappingTable) {
 		Class<?> classLiferayModelImpl = getLiferayModelImplClass();
 
 		String fieldPrefix = "TABLE";
@@ -135,14 +198,129 @@ public abstract class ServiceImpl implements Service {
 		return new TableInfo(name, attributesArr, sqlCreate);
 	}
 
-	public ClassedModel updateObject(ClassedModel object) {
-		throw new UnsupportedOperationException();
+	protected Class<?> getLiferayModelImplClassFromSnapshot() {
+		ServiceMetadataSnapshot snapshot = ServiceUtil.getMetadataSnapshot();
+
+		if (snapshot == null) {
+			return null;
+		}
+
+		ServiceMetadataSnapshot.Entry entry = snapshot.get(getClassName());
+
+		if (entry == null) {
+			return null;
+		}
+
+		try {
+			return ServiceUtil.getJavaClass(
+				getClassLoader(), entry.getLiferayModelImplClassName());
+		}
+		catch (ClassNotFoundException cnfe) {
+			if (_log.isDebugEnabled()) {
+				_log.debug(
+					"Discarding metadata snapshot of " + getClassName() +
+						": " + cnfe.getMessage());
+			}
+
+			snapshot.remove(getClassName());
+		}
+
+		return null;
+	}
+
+	protected List<String> getLiferayModelImplMappingTables() {
+		List<String> mappingTablesFields =
+			ReflectionUtil.getLiferayModelImplMappingTablesFields(
+				getLiferayModelImplClass());
+
+		List<String> mappingTables = new ArrayList<String>(
+			mappingTablesFields.size());
+
+		for (String mappingTablesField : mappingTablesFields) {
+			String mappingTable = StringUtil.replaceFirst(
+				mappingTablesField, "MAPPING_TABLE_", StringPool.BLANK);
+
+			mappingTable = StringUtil.replace(
+				mappingTable, "_NAME", StringPool.BLANK);
+
+			mappingTable = StringUtil.toLowerCase(mappingTable);
+
+			mappingTables.add(mappingTable);
+		}
+
+		return mappingTables;
+	}
+
+	/**
+	 * Returns the metadata snapshot entry of this service, if a snapshot is
+	 * configured in ServiceUtil. The first time, the entry is checked against
+	 * the current TABLE_SQL_CREATE and, if it doesn't exist or doesn't match,
+	 * the metadata is discovered again and stored in the snapshot.
+	 */
+	protected ServiceMetadataSnapshot.Entry getMetadataSnapshotEntry() {
+		ServiceMetadataSnapshot snapshot = ServiceUtil.getMetadataSnapshot();
+
+		if (snapshot == null) {
+			return null;
+		}
+
+		ServiceMetadataSnapshot.Entry entry = metadataSnapshotEntry;
+
+		if (entry != null) {
+			return entry;
+		}
+
+		try {
+			Class<?> classLiferayModelImpl = getLiferayModelImplClass();
+
+			if (classLiferayModelImpl == null) {
+				return null;
+			}
+
+			String sqlCreate = (String)ReflectionUtil.getStaticFieldValue(
+				classLiferayModelImpl, "TABLE_SQL_CREATE");
+
+			entry = snapshot.get(getClassName());
+
+			if ((entry == null) || !entry.matches(sqlCreate) ||
+				!classLiferayModelImpl.getName().equals(
+					entry.getLiferayModelImplClassName())) {
+
+				Map<String, TableInfo> mappingTableInfos =
+					new LinkedHashMap<String, TableInfo>();
+
+				for (String mappingTable :
+						getLiferayModelImplMappingTables()) {
+
+					mappingTableInfos.put(
+						mappingTable, createTableInfo(mappingTable));
+				}
+
+				entry = new ServiceMetadataSnapshot.Entry(
+					getClassName(), classLiferayModelImpl.getName(),
+					ServiceMetadataSnapshot.fingerprint(sqlCreate),
+					createTableInfo(null), mappingTableInfos);
+
+				snapshot.put(entry);
+			}
+
+			metadataSnapshotEntry = entry;
+		}
+		catch (Exception e) {
+			if (_log.isDebugEnabled()) {
+				_log.debug(e, e);
+			}
+		}
+
+		return entry;
 	}
 
 	protected String className = null;
 	protected String classSimpleName = null;
 	protected Class<?> liferayModelImplClass = null;
 	protected boolean liferayModelImplClassIsNull = false;
+	protected volatile ServiceMetadataSnapshot.Entry metadataSnapshotEntry =
+		null;
 
 	private static Log _log = LogFactoryUtil.getLog(ServiceImpl.class);
 
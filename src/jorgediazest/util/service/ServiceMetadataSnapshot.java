@@ -0,0 +1,416 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.service;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jorgediazest.util.table.TableInfo;
+
+/**
+ * Versioned snapshot of the metadata of the services (model implementation
+ * class, table info and mapping tables) stored in a file, so it doesn't need
+ * to be discovered again on startup.
+ *
+ * Each entry stores a fingerprint of the TABLE_SQL_CREATE of the model, when
+ * it doesn't match the current one, the entry is discarded and the metadata
+ * is discovered again.
+ *
+ * @author Jorge Díaz
+ */
+public class ServiceMetadataSnapshot {
+
+	public static final int VERSION = 1;
+
+	/**
+	 * 64 bits FNV-1a hash of the string
+	 */
+	public static long fingerprint(String sqlCreate) {
+		long hash = 0xcbf29ce484222325L;
+
+		if (sqlCreate == null) {
+			return hash;
+		}
+
+		for (int i = 0; i < sqlCreate.length(); i++) {
+			hash ^= sqlCreate.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Loads the snapshot stored in the file, mapping it into memory. If the
+	 * file doesn't exist or it is not valid, an empty snapshot is returned.
+	 */
+	public static ServiceMetadataSnapshot load(File file) {
+		ServiceMetadataSnapshot snapshot = new ServiceMetadataSnapshot(file);
+
+		if (!file.exists()) {
+			return snapshot;
+		}
+
+		try {
+			snapshot.read();
+		}
+		catch (Exception e) {
+			_log.warn(
+				"Error reading metadata snapshot " + file + ": " +
+					e.getMessage());
+
+			snapshot.entries.clear();
+		}
+
+		return snapshot;
+	}
+
+	public ServiceMetadataSnapshot(File file) {
+		this.file = file;
+	}
+
+	public Entry get(String className) {
+		return entries.get(className);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public boolean isDirty() {
+		return dirty;
+	}
+
+	public void put(Entry entry) {
+		entries.put(entry.getClassName(), entry);
+
+		dirty = true;
+	}
+
+	public void remove(String className) {
+		if (entries.remove(className) != null) {
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Writes the snapshot to a temporary file that replaces the snapshot file
+	 */
+	public synchronized void save() throws IOException {
+		File dir = file.getAbsoluteFile().getParentFile();
+
+		if ((dir != null) && !dir.exists()) {
+			dir.mkdirs();
+		}
+
+		File tempFile = File.createTempFile(file.getName(), ".tmp", dir);
+
+		dirty = false;
+
+		try {
+			DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile)));
+
+			try {
+				write(out);
+			}
+			finally {
+				out.close();
+			}
+
+			Files.move(
+				tempFile.toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException ioe) {
+			dirty = true;
+
+			tempFile.delete();
+
+			throw ioe;
+		}
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public static class Entry {
+
+		public Entry(
+			String className, String liferayModelImplClassName,
+			long fingerprint, TableInfo tableInfo,
+			Map<String, TableInfo> mappingTableInfos) {
+
+			this.className = className;
+			this.liferayModelImplClassName = liferayModelImplClassName;
+			this.fingerprint = fingerprint;
+			this.tableInfo = tableInfo;
+			this.mappingTableInfos = Collections.unmodifiableMap(
+				new LinkedHashMap<String, TableInfo>(mappingTableInfos));
+		}
+
+		public String getClassName() {
+			return className;
+		}
+
+		public long getFingerprint() {
+			return fingerprint;
+		}
+
+		public String getLiferayModelImplClassName() {
+			return liferayModelImplClassName;
+		}
+
+		public List<String> getMappingTables() {
+			return new ArrayList<String>(mappingTableInfos.keySet());
+		}
+
+		public TableInfo getTableInfo() {
+			return tableInfo;
+		}
+
+		/**
+		 * Returns the table info of the mapping table, or the one of the model
+		 * table if mappingTable is null
+		 */
+		public TableInfo getTableInfo(String mappingTable) {
+			if (mappingTable == null) {
+				return tableInfo;
+			}
+
+			return mappingTableInfos.get(mappingTable);
+		}
+
+		public boolean matches(String sqlCreate) {
+			return (fingerprint == fingerprint(sqlCreate));
+		}
+
+		private final String className;
+		private final long fingerprint;
+		private final String liferayModelImplClassName;
+		private final Map<String, TableInfo> mappingTableInfos;
+		private final TableInfo tableInfo;
+
+	}
+
+	protected void read() throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+
+		try {
+			FileChannel fileChannel = randomAccessFile.getChannel();
+
+			MappedByteBuffer buffer = fileChannel.map(
+				FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException("Invalid file format");
+			}
+
+			int version = buffer.getInt();
+
+			if (version != VERSION) {
+				if (_log.isInfoEnabled()) {
+					_log.info(
+						"Ignoring metadata snapshot " + file + " version " +
+							version);
+				}
+
+				return;
+			}
+
+			int numEntries = buffer.getInt();
+
+			for (int i = 0; i < numEntries; i++) {
+				Entry entry = readEntry(buffer);
+
+				entries.put(entry.getClassName(), entry);
+			}
+		}
+		finally {
+			randomAccessFile.close();
+		}
+
+		if (_log.isDebugEnabled()) {
+			_log.debug(
+				"Loaded " + entries.size() + " entries from metadata " +
+					"snapshot " + file);
+		}
+	}
+
+	protected Entry readEntry(ByteBuffer buffer) {
+		String className = readString(buffer);
+		String liferayModelImplClassName = readString(buffer);
+		long fingerprint = buffer.getLong();
+		TableInfo tableInfo = readTableInfo(buffer);
+
+		int numMappingTables = buffer.getInt();
+
+		Map<String, TableInfo> mappingTableInfos =
+			new LinkedHashMap<String, TableInfo>();
+
+		for (int i = 0; i < numMappingTables; i++) {
+			String mappingTable = readString(buffer);
+
+			mappingTableInfos.put(mappingTable, readTableInfo(buffer));
+		}
+
+		return new Entry(
+			className, liferayModelImplClassName, fingerprint, tableInfo,
+			mappingTableInfos);
+	}
+
+	protected String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+
+		if (length == -1) {
+			return null;
+		}
+
+		byte[] bytes = new byte[length];
+
+		buffer.get(bytes);
+
+		return new String(bytes, UTF8);
+	}
+
+	protected TableInfo readTableInfo(ByteBuffer buffer) {
+		String name = readString(buffer);
+		String sqlCreate = readString(buffer);
+
+		int numAttributes = buffer.getInt();
+
+		Object[][] attributesArr = new Object[numAttributes][];
+
+		for (int i = 0; i < numAttributes; i++) {
+			String attributeName = readString(buffer);
+			int type = buffer.getInt();
+
+			attributesArr[i] = new Object[] {attributeName, type};
+		}
+
+		String primaryKeyAttribute = readString(buffer);
+
+		String[] primaryKeyMultiAttribute = new String[buffer.getInt()];
+
+		for (int i = 0; i < primaryKeyMultiAttribute.length; i++) {
+			primaryKeyMultiAttribute[i] = readString(buffer);
+		}
+
+		return new TableInfo(
+			name, attributesArr, sqlCreate, primaryKeyAttribute,
+			primaryKeyMultiAttribute);
+	}
+
+	protected void write(DataOutputStream out) throws IOException {
+		List<Entry> entriesList = new ArrayList<Entry>(entries.values());
+
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(entriesList.size());
+
+		for (Entry entry : entriesList) {
+			writeString(out, entry.getClassName());
+			writeString(out, entry.getLiferayModelImplClassName());
+			out.writeLong(entry.getFingerprint());
+			writeTableInfo(out, entry.getTableInfo());
+
+			List<String> mappingTables = entry.getMappingTables();
+
+			out.writeInt(mappingTables.size());
+
+			for (String mappingTable : mappingTables) {
+				writeString(out, mappingTable);
+				writeTableInfo(out, entry.getTableInfo(mappingTable));
+			}
+		}
+	}
+
+	protected void writeString(DataOutputStream out, String value)
+		throws IOException {
+
+		if (value == null) {
+			out.writeInt(-1);
+
+			return;
+		}
+
+		byte[] bytes = value.getBytes(UTF8);
+
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	protected void writeTableInfo(DataOutputStream out, TableInfo tableInfo)
+		throws IOException {
+
+		writeString(out, tableInfo.getName());
+		writeString(out, tableInfo.getSqlCreate());
+
+		String[] attributesName = tableInfo.getAttributesName();
+
+		out.writeInt(attributesName.length);
+
+		for (String attributeName : attributesName) {
+			writeString(out, attributeName);
+			out.writeInt(tableInfo.getAttributeTypeId(attributeName));
+		}
+
+		writeString(out, tableInfo.getPrimaryKeyAttribute());
+
+		String[] primaryKeyMultiAttribute =
+			tableInfo.getPrimaryKeyMultiAttribute();
+
+		out.writeInt(primaryKeyMultiAttribute.length);
+
+		for (String attribute : primaryKeyMultiAttribute) {
+			writeString(out, attribute);
+		}
+	}
+
+	private static final int MAGIC = 0x53424d53;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static Log _log = LogFactoryUtil.getLog(
+		ServiceMetadataSnapshot.class);
+
+	private volatile boolean dirty = false;
+	private final Map<String, Entry> entries =
+		new ConcurrentHashMap<String, Entry>();
+	private final File file;
+
+}
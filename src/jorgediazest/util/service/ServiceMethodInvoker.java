@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.service;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Invoker of a service method with zero or one parameters, bound once to its
+ * target. It uses a MethodHandle adapted to a generic type, so calls don't
+ * allocate argument arrays nor do access checks, and falls back to
+ * Method.invoke if the method is not accessible through a MethodHandle.
+ *
+ * @author Jorge Díaz
+ */
+public class ServiceMethodInvoker {
+
+	public ServiceMethodInvoker(Object target, Method method) {
+		parameterCount = method.getParameterTypes().length;
+
+		if (parameterCount > 1) {
+			throw new IllegalArgumentException(
+				method + " has more than one parameter");
+		}
+
+		this.target = target;
+		this.method = method;
+
+		methodHandle = getMethodHandle(target, method);
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	public Object getTarget() {
+		return target;
+	}
+
+	/**
+	 * Invokes the method, the argument is ignored if the method has no
+	 * parameters. Exceptions thrown by the method are wrapped in an
+	 * InvocationTargetException, as Method.invoke does.
+	 */
+	public Object invoke(Object arg)
+		throws IllegalAccessException, InvocationTargetException {
+
+		if (methodHandle == null) {
+			if (parameterCount == 0) {
+				return method.invoke(target);
+			}
+
+			return method.invoke(target, arg);
+		}
+
+		try {
+			if (parameterCount == 0) {
+				return (Object)methodHandle.invokeExact();
+			}
+
+			return (Object)methodHandle.invokeExact(arg);
+		}
+		catch (Throwable t) {
+			throw new InvocationTargetException(t);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return method.toString();
+	}
+
+	protected static MethodHandle getMethodHandle(
+		Object target, Method method) {
+
+		try {
+			MethodHandle methodHandle = MethodHandles.publicLookup().unreflect(
+				method);
+
+			methodHandle = methodHandle.bindTo(target);
+
+			if (method.getParameterTypes().length == 0) {
+				return methodHandle.asType(MethodType.methodType(Object.class));
+			}
+
+			return methodHandle.asType(
+				MethodType.methodType(Object.class, Object.class));
+		}
+		catch (IllegalAccessException iae) {
+			if (_log.isDebugEnabled()) {
+				_log.debug(
+					"Using reflection to invoke " + method + ": " +
+						iae.getMessage());
+			}
+
+			return null;
+		}
+	}
+
+	private static Log _log = LogFactoryUtil.getLog(ServiceMethodInvoker.class);
+
+	private final Method method;
+	private final MethodHandle methodHandle;
+	private final int parameterCount;
+	private final Object target;
+
+}
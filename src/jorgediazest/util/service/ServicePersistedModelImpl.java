@@ -18,15 +18,22 @@ import com.liferay.portal.kernel.dao.orm.DynamicQuery;
 import com.liferay.portal.kernel.dao.orm.DynamicQueryFactoryUtil;
 import com.liferay.portal.kernel.log.Log;
 import com.liferay.portal.kernel.log.LogFactoryUtil;
+import com.liferay.portal.kernel.model.BaseModel;
 import com.liferay.portal.kernel.model.ClassedModel;
 import com.liferay.portal.kernel.service.BaseLocalService;
-import com.liferay.portal.kernel.util.MethodKey;
+import com.liferay.portal.kernel.transaction.Propagation;
+import com.liferay.portal.kernel.transaction.TransactionConfig;
+import com.liferay.portal.kernel.transaction.TransactionInvokerUtil;
 import com.liferay.portal.kernel.util.StringPool;
 
 import java.lang.reflect.Method;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -53,10 +60,13 @@ public class ServicePersistedModelImpl extends ServiceImpl {
 	}
 
 	public ClassedModel addObject(ClassedModel object) {
-		String methodName = "add" + object.getModelClass().getSimpleName();
+		return executeObjectMethod("add", object);
+	}
 
-		return (ClassedModel)executeServiceMethod(
-			methodName, object.getModelClass(), object);
+	public ServiceBatchResult addObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		return executeObjectMethodBatch("add", objects, batchSize);
 	}
 
 	public ClassedModel createObject(long primaryKey) {
@@ -67,10 +77,7 @@ public class ServicePersistedModelImpl extends ServiceImpl {
 	}
 
 	public ClassedModel deleteObject(ClassedModel object) {
-		String methodName = "delete" + object.getModelClass().getSimpleName();
-
-		return (ClassedModel)executeServiceMethod(
-			methodName, object.getModelClass(), object);
+		return executeObjectMethod("delete", object);
 	}
 
 	public ClassedModel deleteObject(long primaryKey) {
@@ -80,6 +87,12 @@ public class ServicePersistedModelImpl extends ServiceImpl {
 			methodName, long.class, (Object)primaryKey);
 	}
 
+	public ServiceBatchResult deleteObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		return executeObjectMethodBatch("delete", objects, batchSize);
+	}
+
 	public List<?> executeDynamicQuery(DynamicQuery dynamicQuery) {
 		return (List<?>)executeServiceMethod(
 			"dynamicQuery", DynamicQuery.class, dynamicQuery);
@@ -89,17 +102,10 @@ public class ServicePersistedModelImpl extends ServiceImpl {
 		String methodName, Class<?> parameterType, Object arg) {
 
 		try {
-			Method method = getLocalServiceMethod(methodName, parameterType);
+			ServiceMethodInvoker invoker = getLocalServiceInvoker(
+				methodName, parameterType);
 
-			if (method == null) {
-				return null;
-			}
-
-			if (arg == null) {
-				return method.invoke(modelService);
-			}
-
-			return method.invoke(modelService, arg);
+			return invoker.invoke(arg);
 		}
 		catch (NoSuchMethodException e) {
 			throw new RuntimeException(
@@ -153,58 +159,226 @@ public class ServicePersistedModelImpl extends ServiceImpl {
 	}
 
 	public ClassedModel updateObject(ClassedModel object) {
-		String methodName = "update" + object.getModelClass().getSimpleName();
+		return executeObjectMethod("update", object);
+	}
+
+	public ServiceBatchResult updateObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		return executeObjectMethodBatch("update", objects, batchSize);
+	}
+
+	/**
+	 * Executes the local service method methodPrefix + model class simple
+	 * name, for example addUser, with the object as argument
+	 */
+	protected ClassedModel executeObjectMethod(
+		String methodPrefix, ClassedModel object) {
+
+		Class<?> modelClass = object.getModelClass();
 
 		return (ClassedModel)executeServiceMethod(
-			methodName, object.getModelClass(), object);
+			methodPrefix + modelClass.getSimpleName(), modelClass, object);
 	}
 
-	protected Method getLocalServiceMethod(
-		String methodName, Class<?> parameterType)
-			throws ClassNotFoundException, NoSuchMethodException {
+	/**
+	 * Executes executeObjectMethod for the objects in batches of batchSize,
+	 * each batch in a new transaction, independent of the caller one. If the
+	 * transaction of a batch fails it is rolled back, the state of its
+	 * objects is restored and they are retried one by one, each one in a new
+	 * transaction, so the failing ones are reported in the result. Callers
+	 * must not hold locks on the same rows, see Service.addObjects.
+	 */
+	protected ServiceBatchResult executeObjectMethodBatch(
+		String methodPrefix, Collection<? extends ClassedModel> objects,
+		int batchSize) {
+
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException(
+				"batchSize must be greater than zero");
+		}
 
-		String key = methodName;
+		ServiceBatchResult result = new ServiceBatchResult();
 
-		if (parameterType != null) {
-			key = key + "#" + parameterType.getName();
+		List<ClassedModel> batch = new ArrayList<ClassedModel>(
+			Math.min(batchSize, objects.size()));
+
+		for (ClassedModel object : objects) {
+			batch.add(object);
+
+			if (batch.size() >= batchSize) {
+				executeObjectMethodBatch(methodPrefix, batch, result);
+
+				batch.clear();
+			}
+		}
+
+		if (!batch.isEmpty()) {
+			executeObjectMethodBatch(methodPrefix, batch, result);
+		}
+
+		return result;
+	}
+
+	protected void executeObjectMethodBatch(
+		String methodPrefix, List<ClassedModel> batch,
+		ServiceBatchResult result) {
+
+		result.incrementBatchCount();
+
+		List<ObjectState> objectStates = new ArrayList<ObjectState>(
+			batch.size());
+
+		for (ClassedModel object : batch) {
+			objectStates.add(new ObjectState(object));
+		}
+
+		try {
+			result.addResults(
+				executeObjectMethodInTransaction(methodPrefix, batch));
+
+			return;
+		}
+		catch (Throwable t) {
+			if (_log.isDebugEnabled()) {
+				_log.debug(
+					"Batch " + methodPrefix + " of " + batch.size() + " " +
+						classSimpleName + " failed, retrying one by one: " + t);
+			}
 		}
 
-		Method method = null;
+		result.incrementRetriedBatchCount();
+
+		for (int i = 0; i < batch.size(); i++) {
+			ClassedModel object = batch.get(i);
+			ObjectState objectState = objectStates.get(i);
+
+			objectState.restore(object);
 
-		if (localServiceMethods.containsKey(key)) {
 			try {
-				method = localServiceMethods.get(key).getMethod();
+				result.addResults(
+					executeObjectMethodInTransaction(
+						methodPrefix, Collections.singletonList(object)));
 			}
-			catch (NoSuchMethodException e) {
+			catch (Throwable t) {
+				objectState.restore(object);
+
+				result.addError(object, t);
 			}
 		}
+	}
+
+	/**
+	 * Executes executeObjectMethod for the objects in a new transaction,
+	 * rolling it back if any of them fails
+	 */
+	protected List<ClassedModel> executeObjectMethodInTransaction(
+			final String methodPrefix, final List<ClassedModel> objects)
+		throws Throwable {
 
-		if (method == null) {
-			Class<?> classLocalService = modelService.getClass();
+		return TransactionInvokerUtil.invoke(
+			transactionConfig,
+			new Callable<List<ClassedModel>>() {
+
+				@Override
+				public List<ClassedModel> call() {
+					List<ClassedModel> results = new ArrayList<ClassedModel>(
+						objects.size());
+
+					for (ClassedModel object : objects) {
+						results.add(executeObjectMethod(methodPrefix, object));
+					}
+
+					return results;
+				}
+
+			});
+	}
+
+	/**
+	 * Returns the invoker of the local service method, creating and caching
+	 * it the first time
+	 */
+	protected ServiceMethodInvoker getLocalServiceInvoker(
+			String methodName, Class<?> parameterType)
+		throws NoSuchMethodException {
+
+		String key = methodName;
+
+		if (parameterType != null) {
+			key = key + "#" + parameterType.getName();
+		}
+
+		ServiceMethodInvoker invoker = localServiceInvokers.get(key);
+
+		if (invoker != null) {
+			return invoker;
+		}
 
-			if (parameterType != null) {
-				method = classLocalService.getMethod(methodName, parameterType);
+		Method method = getLocalServiceMethod(methodName, parameterType);
+
+		invoker = new ServiceMethodInvoker(modelService, method);
+
+		localServiceInvokers.put(key, invoker);
+
+		return invoker;
+	}
+
+	protected Method getLocalServiceMethod(
+			String methodName, Class<?> parameterType)
+		throws NoSuchMethodException {
+
+		Class<?> classLocalService = modelService.getClass();
+
+		if (parameterType != null) {
+			return classLocalService.getMethod(methodName, parameterType);
+		}
+
+		return classLocalService.getMethod(methodName);
+	}
+
+	/**
+	 * State of an object before a batch, restored before retrying it, as the
+	 * rolled back attempt may have changed it, for example its new flag or
+	 * its modified date
+	 */
+	protected static class ObjectState {
+
+		public ObjectState(ClassedModel object) {
+			modelAttributes = object.getModelAttributes();
+
+			if (object instanceof BaseModel) {
+				isNew = ((BaseModel<?>)object).isNew();
 			}
 			else {
-				method = classLocalService.getMethod(methodName);
+				isNew = false;
 			}
+		}
 
-			if (method == null) {
-				localServiceMethods.put(key, new MethodKey());
+		public void restore(ClassedModel object) {
+			if (modelAttributes != null) {
+				object.setModelAttributes(modelAttributes);
 			}
-			else {
-				localServiceMethods.put(key, new MethodKey(method));
+
+			if (object instanceof BaseModel) {
+				((BaseModel<?>)object).setNew(isNew);
 			}
 		}
 
-		return method;
+		protected final boolean isNew;
+		protected final Map<String, Object> modelAttributes;
+
 	}
 
-	protected Map<String, MethodKey> localServiceMethods =
-		new ConcurrentHashMap<String, MethodKey>();
+	protected Map<String, ServiceMethodInvoker> localServiceInvokers =
+		new ConcurrentHashMap<String, ServiceMethodInvoker>();
 	protected BaseLocalService modelService = null;
 
 	private static Log _log = LogFactoryUtil.getLog(
 		ServicePersistedModelImpl.class);
 
+	private static TransactionConfig transactionConfig =
+		TransactionConfig.Factory.create(
+			Propagation.REQUIRES_NEW, new Class<?>[] {Exception.class});
+
 }
\ No newline at end of file
@@ -14,7 +14,6 @@
 
 package jorgediazest.util.service;
 
-import com.liferay.portal.kernel.concurrent.ConcurrentHashSet;
 import com.liferay.portal.kernel.dao.orm.DynamicQuery;
 import com.liferay.portal.kernel.log.Log;
 import com.liferay.portal.kernel.log.LogFactoryUtil;
@@ -25,11 +24,14 @@ import com.liferay.portal.kernel.util.PortalClassLoaderUtil;
 import com.liferay.portal.kernel.util.StringPool;
 import com.liferay.portal.kernel.util.Validator;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import jorgediazest.util.cache.ClassLoaderCache;
+import jorgediazest.util.cache.TimedLRUCache;
 import jorgediazest.util.reflection.ReflectionUtil;
 
 /**
@@ -37,6 +39,60 @@ import jorgediazest.util.reflection.ReflectionUtil;
  */
 public class ServiceUtil {
 
+	/**
+	 * Removes from the cache the portal services whose model classes were
+	 * loaded by the classloader and returns how many were removed. It also
+	 * clears the entity caches and closes the write-behind services of the
+	 * classloader.
+	 */
+	public static int evictClassLoader(ClassLoader classLoader) {
+		for (WriteBehindServiceWrapper writeBehindService :
+				writeBehindServices) {
+
+			if (writeBehindService.getClassLoader() != classLoader) {
+				continue;
+			}
+
+			try {
+				writeBehindService.close();
+			}
+			catch (Exception e) {
+				_log.error(
+					"Error closing write-behind service of " +
+						writeBehindService.getClassName() + ": " +
+							e.getMessage());
+			}
+		}
+
+		for (Map.Entry<String, ClassLoader> entry :
+				entityCacheClassLoaders.entrySet()) {
+
+			if (entry.getValue() != classLoader) {
+				continue;
+			}
+
+			TimedLRUCache<Long, ClassedModel> entityCache = entityCaches.get(
+				entry.getKey());
+
+			if (entityCache != null) {
+				entityCache.clear();
+			}
+
+			entityCacheClassLoaders.remove(entry.getKey(), classLoader);
+		}
+
+		return cachePortalServices.removeClassLoader(classLoader);
+	}
+
+	/**
+	 * Entity cache configured for the class name, or null if none
+	 */
+	public static TimedLRUCache<Long, ClassedModel> getEntityCache(
+		String className) {
+
+		return entityCaches.get(className);
+	}
+
 	public static Class<?> getLiferayModelImplClass(
 		ClassLoader classloader, String liferayModelImpl) {
 
@@ -95,17 +151,116 @@ public class ServiceUtil {
 		return null;
 	}
 
+	public static ServiceMetadataSnapshot getMetadataSnapshot() {
+		return metadataSnapshot;
+	}
+
+	/**
+	 * Cache of the class names without portal service, with its statistics
+	 */
+	public static TimedLRUCache<String, Boolean> getNullPortalServiceCache() {
+		return cacheNullPortalServices;
+	}
+
 	public static Service getService(String className) {
 
 		BaseLocalService modelService =
 			(BaseLocalService)PersistedModelLocalServiceRegistryUtil.
 				getPersistedModelLocalService(className);
 
+		Service service = null;
+
 		if (modelService != null) {
-			return new ServicePersistedModelImpl(modelService, className);
+			service = new ServicePersistedModelImpl(modelService, className);
+		}
+		else {
+			service = getServiceFromPortal(className);
+		}
+
+		TimedLRUCache<Long, ClassedModel> entityCache = entityCaches.get(
+			className);
+
+		if ((service == null) || (entityCache == null)) {
+			return service;
 		}
 
-		return getServiceFromPortal(className);
+		ClassLoader classLoader = service.getClassLoader();
+
+		if (classLoader != null) {
+			ClassLoader previousClassLoader = entityCacheClassLoaders.put(
+				className, classLoader);
+
+			if ((previousClassLoader != null) &&
+				(previousClassLoader != classLoader)) {
+
+				entityCache.clear();
+			}
+		}
+
+		return new EntityCacheServiceWrapper(service, entityCache);
+	}
+
+	/**
+	 * Returns true if the service wraps a local service that is not the one
+	 * registered anymore for its class name, for example because its plugin
+	 * was redeployed or undeployed
+	 */
+	public static boolean isStale(Service service) {
+		while (service instanceof ServiceWrapper) {
+			service = ((ServiceWrapper)service).getWrappedService();
+		}
+
+		if (!(service instanceof ServicePersistedModelImpl)) {
+			return false;
+		}
+
+		ServicePersistedModelImpl persistedModelService =
+			(ServicePersistedModelImpl)service;
+
+		Object modelService =
+			PersistedModelLocalServiceRegistryUtil.
+				getPersistedModelLocalService(
+					persistedModelService.getClassName());
+
+		return modelService != persistedModelService.modelService;
+	}
+
+	public static void removeEntityCache(String className) {
+		entityCaches.remove(className);
+		entityCacheClassLoaders.remove(className);
+	}
+
+	/**
+	 * Caches the entities fetched through the services of the class name
+	 * returned from now on, see EntityCacheServiceWrapper. The cache is shared
+	 * by all of them. It is cleared when their classloader is evicted, or when
+	 * a service of another classloader is returned.
+	 */
+	public static void setEntityCache(
+		String className, int maxSize, long timeToLive) {
+
+		entityCaches.put(
+			className,
+			new TimedLRUCache<Long, ClassedModel>(maxSize, timeToLive));
+	}
+
+	/**
+	 * Sets the snapshot used by services to read and store their metadata,
+	 * null disables it. The snapshot has to be saved by the caller.
+	 */
+	public static void setMetadataSnapshot(
+		ServiceMetadataSnapshot metadataSnapshot) {
+
+		ServiceUtil.metadataSnapshot = metadataSnapshot;
+	}
+
+	/**
+	 * Replaces the cache of the class names without portal service. They are
+	 * retried after timeToLive milliseconds, zero or less means never.
+	 */
+	public static void setNullPortalServiceCache(int maxSize, long timeToLive) {
+		cacheNullPortalServices = new TimedLRUCache<String, Boolean>(
+			maxSize, timeToLive);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -176,7 +331,7 @@ public class ServiceUtil {
 	}
 
 	protected static Service getServiceFromPortal(String className) {
-		if (cacheNullPortalServices.contains(className)) {
+		if (cacheNullPortalServices.get(className) != null) {
 			return null;
 		}
 
@@ -194,7 +349,8 @@ public class ServiceUtil {
 				service = new ServiceClassInterfaceImpl(classInterface);
 
 				if (service.getLiferayModelImplClass() != null) {
-					cachePortalServices.put(className, service);
+					cachePortalServices.put(
+						className, service.getClassLoader(), service);
 					return service;
 				}
 			}
@@ -207,15 +363,46 @@ public class ServiceUtil {
 			}
 		}
 
-		cacheNullPortalServices.add(className);
+		cacheNullPortalServices.put(className, Boolean.TRUE);
 		return null;
 	}
 
+	protected static void registerWriteBehindService(
+		WriteBehindServiceWrapper writeBehindService) {
+
+		writeBehindServices.add(writeBehindService);
+	}
+
+	protected static void unregisterWriteBehindService(
+		WriteBehindServiceWrapper writeBehindService) {
+
+		writeBehindServices.remove(writeBehindService);
+	}
+
+	protected static final int DEFAULT_CACHE_MAX_SIZE = 1000;
+
+	protected static final int DEFAULT_NULL_CACHE_MAX_SIZE = 10000;
+
+	protected static final long DEFAULT_NULL_CACHE_TIME_TO_LIVE =
+		5 * 60 * 1000;
+
 	private static Log _log = LogFactoryUtil.getLog(ServiceUtil.class);
 
-	private static Set<String> cacheNullPortalServices =
-		new ConcurrentHashSet<String>();
-	private static Map<String, ServiceClassInterfaceImpl> cachePortalServices =
-		new ConcurrentHashMap<String, ServiceClassInterfaceImpl>();
+	private static volatile TimedLRUCache<String, Boolean>
+		cacheNullPortalServices = new TimedLRUCache<String, Boolean>(
+			DEFAULT_NULL_CACHE_MAX_SIZE, DEFAULT_NULL_CACHE_TIME_TO_LIVE);
+	private static ClassLoaderCache<String, ServiceClassInterfaceImpl>
+		cachePortalServices =
+			new ClassLoaderCache<String, ServiceClassInterfaceImpl>(
+				DEFAULT_CACHE_MAX_SIZE, 0);
+	private static Map<String, ClassLoader> entityCacheClassLoaders =
+		new ConcurrentHashMap<String, ClassLoader>();
+	private static Map<String, TimedLRUCache<Long, ClassedModel>>
+		entityCaches =
+			new ConcurrentHashMap<String, TimedLRUCache<Long, ClassedModel>>();
+	private static volatile ServiceMetadataSnapshot metadataSnapshot = null;
+	private static Set<WriteBehindServiceWrapper> writeBehindServices =
+		Collections.newSetFromMap(
+			new ConcurrentHashMap<WriteBehindServiceWrapper, Boolean>());
 
 }
\ No newline at end of file
@@ -20,7 +20,9 @@ import com.liferay.portal.kernel.log.Log;
 import com.liferay.portal.kernel.log.LogFactoryUtil;
 import com.liferay.portal.kernel.model.ClassedModel;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import jorgediazest.util.model.ModelUtil;
 import jorgediazest.util.reflection.ReflectionUtil;
@@ -45,6 +47,13 @@ public class ServiceWrapper implements Service, Cloneable {
 		return service.addObject(object);
 	}
 
+	@Override
+	public ServiceBatchResult addObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		return service.addObjects(objects, batchSize);
+	}
+
 	@Override
 	public ServiceWrapper clone() {
 		ServiceWrapper serviceWrapper = new ServiceWrapper(service);
@@ -69,6 +78,13 @@ public class ServiceWrapper implements Service, Cloneable {
 		return service.deleteObject(primaryKey);
 	}
 
+	@Override
+	public ServiceBatchResult deleteObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		return service.deleteObjects(objects, batchSize);
+	}
+
 	@Override
 	public List<?> executeDynamicQuery(DynamicQuery dynamicQuery)
 		throws Exception {
@@ -83,6 +99,13 @@ public class ServiceWrapper implements Service, Cloneable {
 		return service.fetchObject(primaryKey);
 	}
 
+	@Override
+	public Map<Long, ClassedModel> fetchObjects(long[] primaryKeys)
+		throws Exception {
+
+		return service.fetchObjects(primaryKeys);
+	}
+
 	@Override
 	public ClassLoader getClassLoader() {
 		return service.getClassLoader();
@@ -117,6 +140,10 @@ public class ServiceWrapper implements Service, Cloneable {
 		return service.getTableInfo(fieldPrefix);
 	}
 
+	public Service getWrappedService() {
+		return service;
+	}
+
 	@Override
 	public DynamicQuery newDynamicQuery() {
 		return service.newDynamicQuery();
@@ -157,6 +184,13 @@ public class ServiceWrapper implements Service, Cloneable {
 		return service.updateObject(object);
 	}
 
+	@Override
+	public ServiceBatchResult updateObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		return service.updateObjects(objects, batchSize);
+	}
+
 	protected Criterion criterion = null;
 	protected Service service;
 
@@ -0,0 +1,510 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.service;
+
+import com.liferay.portal.kernel.log.Log;
+import com.liferay.portal.kernel.log.LogFactoryUtil;
+import com.liferay.portal.kernel.model.ClassedModel;
+import com.liferay.portal.kernel.util.NamedThreadFactory;
+
+import java.io.Closeable;
+import java.io.Serializable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service wrapper that buffers the calls to updateObject and writes them
+ * later with updateObjects, in batches of batchSize. Repeated updates of the
+ * same primary key are coalesced, only the last object is written.
+ *
+ * The buffer is flushed when it reaches maxPendingWrites objects, every
+ * maxDelay milliseconds if it is greater than zero, and when flush() or
+ * close() are called, so close() must be called on shutdown. Until then,
+ * fetchObject and fetchObjects return the pending objects, and deleting an
+ * object discards its pending update. Update errors of a flush are logged
+ * and returned by flush(), and the failing objects are kept pending, unless
+ * they were updated again meanwhile, so they are retried by the next flush.
+ * An update that fails maxRetries + 1 times is discarded and logged as error.
+ *
+ * The periodic flush thread is owned by the wrapper that created it and is
+ * stopped by its close(), which is also called by ServiceUtil.evictClassLoader
+ * for the wrappers of the evicted classloader. Clones share the buffer, but
+ * their close() only flushes it.
+ *
+ * @author Jorge Díaz
+ */
+public class WriteBehindServiceWrapper
+	extends ServiceWrapper implements Closeable {
+
+	public static final int DEFAULT_MAX_RETRIES = 3;
+
+	public WriteBehindServiceWrapper(
+		Service service, int maxPendingWrites, long maxDelay, int batchSize) {
+
+		this(
+			service, maxPendingWrites, maxDelay, batchSize,
+			DEFAULT_MAX_RETRIES);
+	}
+
+	public WriteBehindServiceWrapper(
+		Service service, int maxPendingWrites, long maxDelay, int batchSize,
+		int maxRetries) {
+
+		super(service);
+
+		if ((maxPendingWrites <= 0) || (batchSize <= 0)) {
+			throw new IllegalArgumentException(
+				"maxPendingWrites and batchSize must be greater than zero");
+		}
+
+		if (maxRetries < 0) {
+			throw new IllegalArgumentException(
+				"maxRetries must not be negative");
+		}
+
+		this.maxPendingWrites = maxPendingWrites;
+		this.maxDelay = maxDelay;
+		this.batchSize = batchSize;
+		this.maxRetries = maxRetries;
+
+		coalescedWriteCount = new AtomicLong();
+		discardedWriteCount = new AtomicLong();
+		failedWriteCount = new AtomicLong();
+		flushCount = new AtomicLong();
+		flushedWriteCount = new AtomicLong();
+		flushingWrites = new LinkedHashMap<Long, ClassedModel>();
+		flushLock = new Object();
+		pendingWrites = new LinkedHashMap<Long, ClassedModel>();
+		retryCounts = new HashMap<Long, Integer>();
+
+		if (maxDelay > 0) {
+			Thread currentThread = Thread.currentThread();
+
+			scheduler = Executors.newSingleThreadScheduledExecutor(
+				new NamedThreadFactory(
+					WriteBehindServiceWrapper.class.getSimpleName() + "-" +
+						service.getClassSimpleName(),
+					Thread.NORM_PRIORITY,
+					currentThread.getContextClassLoader()));
+
+			scheduler.scheduleWithFixedDelay(
+				new Runnable() {
+
+					@Override
+					public void run() {
+						try {
+							flush();
+						}
+						catch (Throwable t) {
+							_log.error(t, t);
+						}
+					}
+
+				},
+				maxDelay, maxDelay, TimeUnit.MILLISECONDS);
+
+			ServiceUtil.registerWriteBehindService(this);
+		}
+		else {
+			scheduler = null;
+		}
+	}
+
+	/**
+	 * Constructor used by clone(), the new wrapper shares the buffer but not
+	 * the periodic flush thread, which is only stopped by the original wrapper
+	 */
+	protected WriteBehindServiceWrapper(
+		Service service, WriteBehindServiceWrapper serviceWrapper) {
+
+		super(service);
+
+		batchSize = serviceWrapper.batchSize;
+		coalescedWriteCount = serviceWrapper.coalescedWriteCount;
+		discardedWriteCount = serviceWrapper.discardedWriteCount;
+		failedWriteCount = serviceWrapper.failedWriteCount;
+		flushCount = serviceWrapper.flushCount;
+		flushedWriteCount = serviceWrapper.flushedWriteCount;
+		flushingWrites = serviceWrapper.flushingWrites;
+		flushLock = serviceWrapper.flushLock;
+		maxDelay = serviceWrapper.maxDelay;
+		maxPendingWrites = serviceWrapper.maxPendingWrites;
+		maxRetries = serviceWrapper.maxRetries;
+		pendingWrites = serviceWrapper.pendingWrites;
+		retryCounts = serviceWrapper.retryCounts;
+		scheduler = null;
+	}
+
+	@Override
+	public WriteBehindServiceWrapper clone() {
+		WriteBehindServiceWrapper serviceWrapper =
+			new WriteBehindServiceWrapper(service, this);
+
+		serviceWrapper.setCriterion(criterion);
+
+		return serviceWrapper;
+	}
+
+	/**
+	 * Stops the periodic flush, if this wrapper created it, and flushes the
+	 * pending updates. Updates that fail are logged as errors and kept
+	 * pending, they are only written by a later call to flush().
+	 */
+	@Override
+	public void close() {
+		if (scheduler != null) {
+			scheduler.shutdown();
+
+			ServiceUtil.unregisterWriteBehindService(this);
+		}
+
+		ServiceBatchResult result = flush();
+
+		if (result.hasErrors()) {
+			_log.error(
+				"Closed with " + result.getErrorCount() + " updates of " +
+					getClassName() + " not written: " + result.getErrors());
+		}
+	}
+
+	@Override
+	public ClassedModel deleteObject(ClassedModel object) {
+		synchronized (flushLock) {
+			discardPendingWrite(getPrimaryKey(object));
+
+			return super.deleteObject(object);
+		}
+	}
+
+	@Override
+	public ClassedModel deleteObject(long primaryKey) {
+		synchronized (flushLock) {
+			discardPendingWrite(primaryKey);
+
+			return super.deleteObject(primaryKey);
+		}
+	}
+
+	@Override
+	public ServiceBatchResult deleteObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		synchronized (flushLock) {
+			for (ClassedModel object : objects) {
+				discardPendingWrite(getPrimaryKey(object));
+			}
+
+			return super.deleteObjects(objects, batchSize);
+		}
+	}
+
+	@Override
+	public ClassedModel fetchObject(long primaryKey) {
+		ClassedModel object = getPendingWrite(primaryKey);
+
+		if (object != null) {
+			return object;
+		}
+
+		return super.fetchObject(primaryKey);
+	}
+
+	@Override
+	public Map<Long, ClassedModel> fetchObjects(long[] primaryKeys)
+		throws Exception {
+
+		Map<Long, ClassedModel> map = super.fetchObjects(primaryKeys);
+
+		for (Map.Entry<Long, ClassedModel> entry : map.entrySet()) {
+			ClassedModel object = getPendingWrite(entry.getKey());
+
+			if (object != null) {
+				entry.setValue(object);
+			}
+		}
+
+		return map;
+	}
+
+	/**
+	 * Writes the pending updates, returns the result of updateObjects
+	 */
+	public ServiceBatchResult flush() {
+		synchronized (flushLock) {
+			synchronized (pendingWrites) {
+				if (pendingWrites.isEmpty()) {
+					return new ServiceBatchResult();
+				}
+
+				flushingWrites.putAll(pendingWrites);
+
+				pendingWrites.clear();
+			}
+
+			ServiceBatchResult result = null;
+
+			try {
+				List<ClassedModel> objects = new ArrayList<ClassedModel>(
+					flushingWrites.values());
+
+				result = super.updateObjects(objects, batchSize);
+
+				flushCount.incrementAndGet();
+				flushedWriteCount.addAndGet(result.getSuccessCount());
+
+				if (result.hasErrors() && _log.isWarnEnabled()) {
+					_log.warn(
+						"Error flushing " + result.getErrorCount() +
+							" updates of " + getClassName() +
+								", they will be retried up to " + maxRetries +
+									" times: " + result.getErrors());
+				}
+
+				return result;
+			}
+			finally {
+				synchronized (pendingWrites) {
+					requeueFailedWrites(result);
+
+					flushingWrites.clear();
+				}
+			}
+		}
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Number of updates that replaced a pending update of the same object
+	 */
+	public long getCoalescedWriteCount() {
+		return coalescedWriteCount.get();
+	}
+
+	/**
+	 * Number of updates discarded after failing maxRetries + 1 times
+	 */
+	public long getDiscardedWriteCount() {
+		return discardedWriteCount.get();
+	}
+
+	/**
+	 * Number of updates that failed when flushed and were kept pending
+	 */
+	public long getFailedWriteCount() {
+		return failedWriteCount.get();
+	}
+
+	public long getFlushCount() {
+		return flushCount.get();
+	}
+
+	public long getFlushedWriteCount() {
+		return flushedWriteCount.get();
+	}
+
+	public long getMaxDelay() {
+		return maxDelay;
+	}
+
+	public int getMaxPendingWrites() {
+		return maxPendingWrites;
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	public int getPendingWriteCount() {
+		synchronized (pendingWrites) {
+			return pendingWrites.size();
+		}
+	}
+
+	/**
+	 * Buffers the update, the object is returned as is. Objects without a
+	 * numeric primary key are updated immediately.
+	 */
+	@Override
+	public ClassedModel updateObject(ClassedModel object) {
+		Long primaryKey = getPrimaryKey(object);
+
+		if (primaryKey == null) {
+			return super.updateObject(object);
+		}
+
+		int numPendingWrites;
+
+		synchronized (pendingWrites) {
+			if (pendingWrites.put(primaryKey, object) != null) {
+				coalescedWriteCount.incrementAndGet();
+			}
+
+			retryCounts.remove(primaryKey);
+
+			numPendingWrites = pendingWrites.size();
+		}
+
+		if (numPendingWrites >= maxPendingWrites) {
+			flush();
+		}
+
+		return object;
+	}
+
+	/**
+	 * Updates the objects immediately, discarding their pending updates
+	 */
+	@Override
+	public ServiceBatchResult updateObjects(
+		Collection<? extends ClassedModel> objects, int batchSize) {
+
+		synchronized (flushLock) {
+			for (ClassedModel object : objects) {
+				discardPendingWrite(getPrimaryKey(object));
+			}
+
+			return super.updateObjects(objects, batchSize);
+		}
+	}
+
+	protected void discardPendingWrite(Long primaryKey) {
+		if (primaryKey == null) {
+			return;
+		}
+
+		synchronized (pendingWrites) {
+			pendingWrites.remove(primaryKey);
+			retryCounts.remove(primaryKey);
+		}
+	}
+
+	protected ClassedModel getPendingWrite(long primaryKey) {
+		synchronized (pendingWrites) {
+			ClassedModel object = pendingWrites.get(primaryKey);
+
+			if (object == null) {
+				object = flushingWrites.get(primaryKey);
+			}
+
+			return object;
+		}
+	}
+
+	protected Long getPrimaryKey(ClassedModel object) {
+		if (object == null) {
+			return null;
+		}
+
+		Serializable primaryKeyObj = object.getPrimaryKeyObj();
+
+		if (primaryKeyObj instanceof Number) {
+			return ((Number)primaryKeyObj).longValue();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Puts back into the pending updates the objects whose update failed,
+	 * unless there is a newer pending update of the same object or they have
+	 * already been retried maxRetries times, then they are discarded. If
+	 * result is null, because updateObjects threw an exception, all the
+	 * flushing objects are put back. It must be called holding the
+	 * pendingWrites lock.
+	 */
+	protected void requeueFailedWrites(ServiceBatchResult result) {
+		Collection<ClassedModel> failedObjects;
+
+		if (result == null) {
+			failedObjects = flushingWrites.values();
+		}
+		else {
+			failedObjects = new ArrayList<ClassedModel>(
+				result.getErrorCount());
+
+			for (ServiceBatchResult.ItemError error : result.getErrors()) {
+				failedObjects.add(error.getObject());
+			}
+		}
+
+		Map<Long, Integer> failedRetryCounts = new HashMap<Long, Integer>();
+
+		for (ClassedModel object : failedObjects) {
+			Long primaryKey = getPrimaryKey(object);
+
+			if ((primaryKey == null) || pendingWrites.containsKey(primaryKey)) {
+				continue;
+			}
+
+			Integer retryCount = retryCounts.get(primaryKey);
+
+			if (retryCount == null) {
+				retryCount = 0;
+			}
+
+			if (retryCount >= maxRetries) {
+				discardedWriteCount.incrementAndGet();
+
+				_log.error(
+					"Discarded update of " + getClassName() + " " +
+						primaryKey + " after " + (retryCount + 1) +
+							" failed attempts");
+
+				continue;
+			}
+
+			pendingWrites.put(primaryKey, object);
+
+			failedRetryCounts.put(primaryKey, retryCount + 1);
+
+			failedWriteCount.incrementAndGet();
+		}
+
+		retryCounts.keySet().removeAll(flushingWrites.keySet());
+
+		retryCounts.putAll(failedRetryCounts);
+	}
+
+	protected final int batchSize;
+	protected final AtomicLong coalescedWriteCount;
+	protected final AtomicLong discardedWriteCount;
+	protected final AtomicLong failedWriteCount;
+	protected final AtomicLong flushCount;
+	protected final AtomicLong flushedWriteCount;
+	protected final Map<Long, ClassedModel> flushingWrites;
+	protected final Object flushLock;
+	protected final long maxDelay;
+	protected final int maxPendingWrites;
+	protected final int maxRetries;
+	protected final Map<Long, ClassedModel> pendingWrites;
+	protected final Map<Long, Integer> retryCounts;
+	protected final ScheduledExecutorService scheduler;
+
+	private static Log _log = LogFactoryUtil.getLog(
+		WriteBehindServiceWrapper.class);
+
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+package jorgediazest.util.table;
+
+import com.liferay.portal.kernel.util.StringPool;
+
+/**
+ * Immutable description of a column, as declared in the SQL create
+ * statement of its table, see TableUtil.getColumns
+ *
+ * @author Jorge Díaz
+ */
+public class TableColumn {
+
+	public TableColumn(
+		String name, String sqlType, int jdbcType, int length,
+		boolean nullable, int primaryKeyPosition,
+		boolean primaryKeyConstraint) {
+
+		this.name = name;
+		this.sqlType = sqlType;
+		this.jdbcType = jdbcType;
+		this.length = length;
+		this.nullable = nullable;
+		this.primaryKeyPosition = primaryKeyPosition;
+		this.primaryKeyConstraint = primaryKeyConstraint;
+
+		if (name.endsWith(StringPool.UNDERLINE)) {
+			attributeName = name.substring(0, name.length() - 1);
+		}
+		else {
+			attributeName = name;
+		}
+	}
+
+	/**
+	 * Name of the column without the trailing underscore that is added to
+	 * the names that are reserved words, like type_ or uuid_
+	 */
+	public String getAttributeName() {
+		return attributeName;
+	}
+
+	/**
+	 * Type of the column as a java.sql.Types constant
+	 */
+	public int getJdbcType() {
+		return jdbcType;
+	}
+
+	/**
+	 * Declared length of the column, like 75 in VARCHAR(75), or -1 if none
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Position of the column in the primary key starting at 1, or 0 if it is
+	 * not part of the primary key
+	 */
+	public int getPrimaryKeyPosition() {
+		return primaryKeyPosition;
+	}
+
+	/**
+	 * Type of the column as declared in the SQL create statement, like LONG
+	 * or VARCHAR
+	 */
+	public String getSqlType() {
+		return sqlType;
+	}
+
+	public boolean isNullable() {
+		return nullable;
+	}
+
+	public boolean isPrimaryKey() {
+		return (primaryKeyPosition > 0);
+	}
+
+	/**
+	 * Returns true if the column is part of a primary key declared in a
+	 * separate primary key (...) clause, instead of inline in the column
+	 * definition
+	 */
+	public boolean isPrimaryKeyConstraint() {
+		return primaryKeyConstraint;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(name);
+		sb.append(StringPool.SPACE);
+		sb.append(sqlType);
+
+		if (length >= 0) {
+			sb.append(StringPool.OPEN_PARENTHESIS);
+			sb.append(length);
+			sb.append(StringPool.CLOSE_PARENTHESIS);
+		}
+
+		if (!nullable) {
+			sb.append(" not null");
+		}
+
+		if (primaryKeyPosition > 0) {
+			sb.append(" primary key ");
+			sb.append(primaryKeyPosition);
+		}
+
+		return sb.toString();
+	}
+
+	private final String attributeName;
+	private final int jdbcType;
+	private final int length;
+	private final String name;
+	private final boolean nullable;
+	private final boolean primaryKeyConstraint;
+	private final int primaryKeyPosition;
+	private final String sqlType;
+
+}
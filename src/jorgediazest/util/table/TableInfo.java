@@ -19,8 +19,12 @@ import com.liferay.portal.kernel.util.StringPool;
 import java.sql.Types;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 import jorgediazest.util.reflection.ReflectionUtil;
 
@@ -35,44 +39,51 @@ public class TableInfo {
 		this.name = name;
 		this.sqlCreate = sqlCreate;
 
-		attributesStr = TableUtil.getDatabaseAttributesStr(name, sqlCreate);
+		List<TableColumn> columns = TableUtil.getColumns(name, sqlCreate);
 
-		if ((attributesStr != null) && (attributesStr.indexOf('#') > 0)) {
-			String aux = attributesStr.split("#")[1];
-			primaryKeyMultiAttribute = aux.split(",");
+		SortedMap<Integer, String> primaryKeyConstraintColumns =
+			new TreeMap<Integer, String>();
 
-			for (int i = 0; i < primaryKeyMultiAttribute.length; i++) {
-				primaryKeyMultiAttribute[i] =
-					primaryKeyMultiAttribute[i].trim();
-			}
-		}
-		else {
-			primaryKeyMultiAttribute = new String[0];
-		}
-
-		String[] arrDatabaseAttributes = getCreateTableAttributes().split(",");
-
-		for (String attr : arrDatabaseAttributes) {
-			String[] aux = attr.split(" ");
-
-			if (aux.length < 2) {
+		for (TableColumn column : columns) {
+			if (!column.isPrimaryKey()) {
 				continue;
 			}
 
-			String col = aux[0];
-
-			if (col.endsWith("_")) {
-				col = col.substring(0, col.length() - 1);
+			if (column.isPrimaryKeyConstraint()) {
+				primaryKeyConstraintColumns.put(
+					column.getPrimaryKeyPosition(), column.getName());
 			}
-
-			if (attr.endsWith("not null primary key")) {
-				primaryKeyAttribute = col;
+			else {
+				primaryKeyAttribute = column.getAttributeName();
 			}
 		}
 
+		primaryKeyMultiAttribute = primaryKeyConstraintColumns.values().toArray(
+			new String[primaryKeyConstraintColumns.size()]);
+
 		if (primaryKeyAttribute == null) {
 			primaryKeyAttribute = StringPool.BLANK;
 		}
+
+		initAttributeIndex();
+		initColumns(columns);
+	}
+
+	/**
+	 * Creates the table info from already parsed primary key information,
+	 * sqlCreate is only parsed if getColumns is called
+	 */
+	public TableInfo(
+		String name, Object[][] attributesArr, String sqlCreate,
+		String primaryKeyAttribute, String[] primaryKeyMultiAttribute) {
+
+		this.attributesArr = attributesArr;
+		this.name = name;
+		this.sqlCreate = sqlCreate;
+		this.primaryKeyAttribute = primaryKeyAttribute;
+		this.primaryKeyMultiAttribute = primaryKeyMultiAttribute;
+
+		initAttributeIndex();
 	}
 
 	@Override
@@ -95,47 +106,27 @@ public class TableInfo {
 		return ReflectionUtil.getJdbcTypeClass(type);
 	}
 
+	/**
+	 * Position of the attribute, -1 if it doesn't exist. A trailing
+	 * underscore is ignored, so "type" and "type_" return the position of the
+	 * column type_, and "pk" returns the position of the primary key.
+	 */
 	public int getAttributePos(String name) {
-		if (mapAttributePosition.containsKey(name)) {
-			return mapAttributePosition.get(name);
-		}
-
-		if ("pk".equals(name)) {
-			name = this.getPrimaryKeyAttribute();
-		}
-
-		if (name.endsWith(StringPool.UNDERLINE)) {
-			name = name.substring(0, name.length() - 1);
-		}
-
-		String nameWithUnderline = name + StringPool.UNDERLINE;
+		Integer pos = attributeIndex.get(name);
 
-		int pos = -1;
-
-		for (int i = 0; i < attributesArr.length; i++) {
-			if (((String)attributesArr[i][0]).endsWith(StringPool.UNDERLINE) &&
-				((String)attributesArr[i][0]).equals(nameWithUnderline)) {
-
-				pos = i;
-			}
-			else if (((String)attributesArr[i][0]).equals(name)) {
-				pos = i;
-			}
+		if (pos == null) {
+			return -1;
 		}
 
-		mapAttributePosition.put(name, pos);
-
 		return pos;
 	}
 
+	/**
+	 * Names of the attributes. The returned array is shared and must not be
+	 * modified.
+	 */
 	public String[] getAttributesName() {
-		String[] names = new String[attributesArr.length];
-
-		for (int i = 0; i < attributesArr.length; i++) {
-			names[i] = (String)attributesArr[i][0];
-		}
-
-		return names;
+		return attributesName;
 	}
 
 	public int getAttributeTypeId(String name) {
@@ -148,6 +139,33 @@ public class TableInfo {
 		return (Integer)this.attributesArr[pos][1];
 	}
 
+	/**
+	 * Column of the attribute, see getAttributePos for the accepted names, or
+	 * null if it doesn't exist
+	 */
+	public TableColumn getColumn(String name) {
+		getColumns();
+
+		return columnIndex.get(name);
+	}
+
+	/**
+	 * Columns as declared in the SQL create statement, including their
+	 * types, lengths, nullability and primary key positions
+	 */
+	public List<TableColumn> getColumns() {
+		if (columns == null) {
+			if (sqlCreate == null) {
+				initColumns(Collections.<TableColumn>emptyList());
+			}
+			else {
+				initColumns(TableUtil.getColumns(name, sqlCreate));
+			}
+		}
+
+		return columns;
+	}
+
 	public String getDestinationAttr(String primaryKey) {
 		String[] attrNames = getAttributesName();
 		String destinationAttr = null;
@@ -198,21 +216,96 @@ public class TableInfo {
 		return toString;
 	}
 
-	protected String getCreateTableAttributes() {
-		String aux = attributesStr;
+	/**
+	 * Builds the immutable index used by getAttributePos. Its keys are the
+	 * column names without their trailing underscore, as lookups do, plus
+	 * those names followed by an underscore and the "pk" alias. When
+	 * several columns have the same key, the last one is used.
+	 */
+	protected void initAttributeIndex() {
+		attributesName = new String[attributesArr.length];
+
+		Map<String, Integer> columns = new HashMap<String, Integer>();
+
+		for (int i = 0; i < attributesArr.length; i++) {
+			String column = (String)attributesArr[i][0];
+
+			attributesName[i] = column;
+
+			columns.put(column, i);
+
+			if (column.endsWith(StringPool.UNDERLINE)) {
+				columns.put(column.substring(0, column.length() - 1), i);
+			}
+		}
+
+		Map<String, Integer> index = new HashMap<String, Integer>(
+			columns.size() * 3);
+
+		for (Map.Entry<String, Integer> entry : columns.entrySet()) {
+			if (!entry.getKey().endsWith(StringPool.UNDERLINE)) {
+				index.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		for (Map.Entry<String, Integer> entry : columns.entrySet()) {
+			index.put(entry.getKey() + StringPool.UNDERLINE, entry.getValue());
+		}
+
+		String primaryKey = primaryKeyAttribute;
+
+		if ((primaryKey != null) && primaryKey.endsWith(StringPool.UNDERLINE)) {
+			primaryKey = primaryKey.substring(0, primaryKey.length() - 1);
+		}
 
-		if (aux.indexOf('#') > 0) {
-			aux = aux.split("#")[0];
+		Integer primaryKeyPos = null;
+
+		if (primaryKey != null) {
+			primaryKeyPos = columns.get(primaryKey);
+		}
+
+		if (primaryKeyPos == null) {
+			index.remove("pk");
+		}
+		else {
+			index.put("pk", primaryKeyPos);
 		}
 
-		return aux;
+		attributeIndex = Collections.unmodifiableMap(index);
 	}
 
-	protected Map<String, Integer> mapAttributePosition =
-		new ConcurrentHashMap<String, Integer>();
+	/**
+	 * Sets the columns and builds the index used by getColumn, with the same
+	 * keys as the attribute index
+	 */
+	protected void initColumns(List<TableColumn> columns) {
+		Map<String, TableColumn> index = new HashMap<String, TableColumn>(
+			columns.size() * 4);
+
+		for (TableColumn column : columns) {
+			index.put(column.getAttributeName() + StringPool.UNDERLINE, column);
+			index.put(column.getAttributeName(), column);
+		}
+
+		for (TableColumn column : columns) {
+			index.put(column.getName(), column);
+		}
+
+		TableColumn primaryKeyColumn = index.get(primaryKeyAttribute);
+
+		if (primaryKeyColumn != null) {
+			index.put("pk", primaryKeyColumn);
+		}
+
+		columnIndex = Collections.unmodifiableMap(index);
+		this.columns = columns;
+	}
 
+	private Map<String, Integer> attributeIndex;
 	private Object[][] attributesArr = null;
-	private String attributesStr = null;
+	private String[] attributesName;
+	private volatile Map<String, TableColumn> columnIndex = null;
+	private volatile List<TableColumn> columns = null;
 	private String name = null;
 
 	/**
@@ -17,11 +17,97 @@ package jorgediazest.util.table;
 import com.liferay.portal.kernel.log.Log;
 import com.liferay.portal.kernel.log.LogFactoryUtil;
 
+import java.sql.Types;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * @author Jorge Díaz
  */
 public class TableUtil {
 
+	/**
+	 * Parses the columns of a SQL create statement, like the TABLE_SQL_CREATE
+	 * of Liferay models, in a single pass. Returns an empty list if the
+	 * table name is not found.
+	 */
+	public static List<TableColumn> getColumns(
+		String tableName, String tableSqlCreate) {
+
+		int pos = tableSqlCreate.indexOf(tableName);
+
+		if (pos > 0) {
+			pos = tableSqlCreate.indexOf('(', pos + tableName.length());
+		}
+
+		int end = tableSqlCreate.lastIndexOf(')');
+
+		if ((pos <= 0) || (end < pos)) {
+			_log.error("Error, TABLE_NAME not found at TABLE_SQL_CREATE");
+
+			return Collections.emptyList();
+		}
+
+		List<TableColumn> columns = new ArrayList<TableColumn>();
+		List<String> primaryKeyColumns = new ArrayList<String>();
+
+		int depth = 0;
+		int start = pos + 1;
+
+		for (int i = start; i <= end; i++) {
+			char c = tableSqlCreate.charAt(i);
+
+			if (c == '(') {
+				depth++;
+			}
+			else if ((c == ')') && (depth > 0)) {
+				depth--;
+			}
+			else if (((c == ',') && (depth == 0)) || (i == end)) {
+				parseDefinition(
+					tableSqlCreate, start, i, columns, primaryKeyColumns);
+
+				start = i + 1;
+			}
+		}
+
+		if (primaryKeyColumns.isEmpty()) {
+			return Collections.unmodifiableList(columns);
+		}
+
+		int numPrimaryKeyColumns = 0;
+
+		for (int i = 0; i < columns.size(); i++) {
+			TableColumn column = columns.get(i);
+
+			int primaryKeyPosition =
+				primaryKeyColumns.indexOf(column.getName()) + 1;
+
+			if (primaryKeyPosition > 0) {
+				numPrimaryKeyColumns++;
+
+				columns.set(
+					i,
+					new TableColumn(
+						column.getName(), column.getSqlType(),
+						column.getJdbcType(), column.getLength(),
+						column.isNullable(), primaryKeyPosition, true));
+			}
+		}
+
+		if ((numPrimaryKeyColumns < primaryKeyColumns.size()) &&
+			_log.isWarnEnabled()) {
+
+			_log.warn(
+				"Primary key " + primaryKeyColumns + " of " + tableName +
+					" has columns that are not defined in " + tableSqlCreate);
+		}
+
+		return Collections.unmodifiableList(columns);
+	}
+
 	public static String getDatabaseAttributesStr(
 			String tableName, String tableSqlCreate) {
 
@@ -54,6 +140,206 @@ public class TableUtil {
 		return tableAttributes;
 	}
 
+	/**
+	 * Maps the SQL types used in Liferay create statements to java.sql.Types
+	 */
+	public static int getJdbcType(String sqlType) {
+		if (sqlType.equalsIgnoreCase("LONG") ||
+			sqlType.equalsIgnoreCase("BIGINT")) {
+
+			return Types.BIGINT;
+		}
+
+		if (sqlType.equalsIgnoreCase("INTEGER") ||
+			sqlType.equalsIgnoreCase("INT")) {
+
+			return Types.INTEGER;
+		}
+
+		if (sqlType.equalsIgnoreCase("SHORT") ||
+			sqlType.equalsIgnoreCase("SMALLINT")) {
+
+			return Types.SMALLINT;
+		}
+
+		if (sqlType.equalsIgnoreCase("DOUBLE")) {
+			return Types.DOUBLE;
+		}
+
+		if (sqlType.equalsIgnoreCase("DECIMAL")) {
+			return Types.DECIMAL;
+		}
+
+		if (sqlType.equalsIgnoreCase("BOOLEAN")) {
+			return Types.BOOLEAN;
+		}
+
+		if (sqlType.equalsIgnoreCase("DATE")) {
+			return Types.TIMESTAMP;
+		}
+
+		if (sqlType.equalsIgnoreCase("VARCHAR") ||
+			sqlType.equalsIgnoreCase("STRING")) {
+
+			return Types.VARCHAR;
+		}
+
+		if (sqlType.equalsIgnoreCase("TEXT")) {
+			return Types.CLOB;
+		}
+
+		if (sqlType.equalsIgnoreCase("BLOB") ||
+			sqlType.equalsIgnoreCase("SBLOB")) {
+
+			return Types.BLOB;
+		}
+
+		return Types.OTHER;
+	}
+
+	protected static boolean matchesWord(
+		String sql, int start, int end, String word) {
+
+		return ((end - start) == word.length()) &&
+			sql.regionMatches(true, start, word, 0, word.length());
+	}
+
+	/**
+	 * Parses a column definition, like "uuid_ VARCHAR(75) null", or a primary
+	 * key constraint, like "primary key (userGroupId, groupId, roleId)",
+	 * between the positions start and end of the SQL create statement
+	 */
+	protected static void parseDefinition(
+		String sql, int start, int end, List<TableColumn> columns,
+		List<String> primaryKeyColumns) {
+
+		int nameStart = skipWhitespace(sql, start, end);
+		int nameEnd = skipWord(sql, nameStart, end);
+
+		if (nameStart == nameEnd) {
+			return;
+		}
+
+		int pos = skipWhitespace(sql, nameEnd, end);
+
+		if (matchesWord(sql, nameStart, nameEnd, "primary")) {
+			int keyEnd = skipWord(sql, pos, end);
+
+			if (matchesWord(sql, pos, keyEnd, "key")) {
+				pos = sql.indexOf('(', keyEnd);
+
+				while ((pos >= 0) && (pos < end)) {
+					int columnStart = skipWhitespace(sql, pos + 1, end);
+					int columnEnd = skipWord(sql, columnStart, end);
+
+					if (columnStart < columnEnd) {
+						primaryKeyColumns.add(
+							sql.substring(columnStart, columnEnd));
+					}
+
+					pos = skipWhitespace(sql, columnEnd, end);
+
+					if ((pos >= end) || (sql.charAt(pos) != ',')) {
+						break;
+					}
+				}
+
+				return;
+			}
+		}
+
+		int typeEnd = skipWord(sql, pos, end);
+
+		String sqlType = sql.substring(pos, typeEnd);
+
+		int length = -1;
+
+		pos = skipWhitespace(sql, typeEnd, end);
+
+		if ((pos < end) && (sql.charAt(pos) == '(')) {
+			pos = skipWhitespace(sql, pos + 1, end);
+
+			while ((pos < end) && Character.isDigit(sql.charAt(pos))) {
+				if (length < 0) {
+					length = 0;
+				}
+
+				length = (length * 10) + (sql.charAt(pos) - '0');
+				pos++;
+			}
+
+			while ((pos < end) && (sql.charAt(pos) != ')')) {
+				pos++;
+			}
+
+			pos++;
+		}
+
+		boolean nullable = true;
+		int primaryKeyPosition = 0;
+		boolean previousWordNot = false;
+
+		while (pos < end) {
+			pos = skipWhitespace(sql, pos, end);
+
+			int wordEnd = skipWord(sql, pos, end);
+
+			if (wordEnd == pos) {
+				pos++;
+
+				continue;
+			}
+
+			if (matchesWord(sql, pos, wordEnd, "null")) {
+				nullable = !previousWordNot;
+			}
+			else if (matchesWord(sql, pos, wordEnd, "primary")) {
+				primaryKeyPosition = 1;
+			}
+			else if (matchesWord(sql, pos, wordEnd, "default")) {
+				wordEnd = skipWord(sql, skipWhitespace(sql, wordEnd, end), end);
+			}
+
+			previousWordNot = matchesWord(sql, pos, wordEnd, "not");
+
+			pos = wordEnd;
+		}
+
+		if (primaryKeyPosition > 0) {
+			nullable = false;
+		}
+
+		columns.add(
+			new TableColumn(
+				sql.substring(nameStart, nameEnd), sqlType,
+				getJdbcType(sqlType), length, nullable, primaryKeyPosition,
+				false));
+	}
+
+	protected static int skipWhitespace(String sql, int pos, int end) {
+		while ((pos < end) && Character.isWhitespace(sql.charAt(pos))) {
+			pos++;
+		}
+
+		return pos;
+	}
+
+	protected static int skipWord(String sql, int pos, int end) {
+		while (pos < end) {
+			char c = sql.charAt(pos);
+
+			if (Character.isWhitespace(c) || (c == '(') || (c == ')') ||
+				(c == ',')) {
+
+				break;
+			}
+
+			pos++;
+		}
+
+		return pos;
+	}
+
 	private static Log _log = LogFactoryUtil.getLog(TableUtil.class);
 
 }
\ No newline at end of file
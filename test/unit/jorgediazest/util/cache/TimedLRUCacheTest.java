@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+
+package jorgediazest.util.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Jorge Díaz
+ */
+public class TimedLRUCacheTest {
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		final List<String> removedKeys = new ArrayList<String>();
+
+		TimedLRUCache<String, Long> cache = new TimedLRUCache<String, Long>(
+			2, 0) {
+
+			@Override
+			protected void entryRemoved(String key, Long value) {
+				removedKeys.add(key);
+			}
+
+		};
+
+		cache.put("a", 1L);
+		cache.put("b", 2L);
+		cache.get("a");
+		cache.put("c", 3L);
+
+		Assert.assertEquals(2, cache.size());
+		Assert.assertEquals(Arrays.asList(1L, 3L), cache.values());
+		Assert.assertTrue(cache.containsKey("a"));
+		Assert.assertFalse(cache.containsKey("b"));
+		Assert.assertEquals(Arrays.asList("b"), removedKeys);
+		Assert.assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void testExpiredEntriesAreNotReturned() {
+		TimedLRUCache<String, Long> cache = new TimedLRUCache<String, Long>(
+			10, 1000) {
+
+			@Override
+			protected long getExpirationTime() {
+				return System.currentTimeMillis() - 1;
+			}
+
+		};
+
+		cache.put("a", 1L);
+
+		Assert.assertNull(cache.get("a"));
+		Assert.assertEquals(1, cache.getExpirationCount());
+		Assert.assertEquals(0, cache.size());
+		Assert.assertTrue(cache.values().isEmpty());
+	}
+
+	@Test
+	public void testGenerationPutAfterClear() {
+		TimedLRUCache<String, Long> cache = new TimedLRUCache<String, Long>(
+			10, 0);
+
+		long generation = cache.getGeneration();
+
+		cache.clear();
+
+		Assert.assertFalse(cache.put("a", 1L, generation));
+		Assert.assertNull(cache.get("a"));
+
+		Assert.assertTrue(cache.put("a", 1L, cache.getGeneration()));
+		Assert.assertEquals(Long.valueOf(1L), cache.get("a"));
+	}
+
+	@Test
+	public void testGenerationPutAfterRemove() {
+		TimedLRUCache<String, Long> cache = new TimedLRUCache<String, Long>(
+			10, 0);
+
+		cache.put("a", 1L);
+
+		long generation = cache.getGeneration();
+
+		Assert.assertTrue(cache.put("b", 2L, generation));
+
+		cache.remove("a");
+
+		Assert.assertFalse(cache.put("b", 3L, generation));
+		Assert.assertEquals(Long.valueOf(2L), cache.get("b"));
+	}
+
+	@Test
+	public void testHitRatio() {
+		TimedLRUCache<String, Long> cache = new TimedLRUCache<String, Long>(
+			10, 0);
+
+		Assert.assertEquals(0, cache.getHitRatio(), 0);
+
+		cache.put("a", 1L);
+
+		cache.get("a");
+		cache.get("a");
+		cache.get("a");
+		cache.get("b");
+
+		Assert.assertEquals(3, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(0.75, cache.getHitRatio(), 0);
+
+		cache.resetStatistics();
+
+		Assert.assertEquals(0, cache.getHitCount());
+		Assert.assertEquals(0, cache.getMissCount());
+	}
+
+	@Test
+	public void testPutReturnsPreviousValue() {
+		TimedLRUCache<String, Long> cache = new TimedLRUCache<String, Long>(
+			10, 0);
+
+		Assert.assertNull(cache.put("a", 1L));
+		Assert.assertEquals(Long.valueOf(1L), cache.put("a", 2L));
+		Assert.assertEquals(Long.valueOf(2L), cache.remove("a"));
+		Assert.assertNull(cache.remove("a"));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testPutNullValue() {
+		TimedLRUCache<String, Long> cache = new TimedLRUCache<String, Long>(
+			10, 0);
+
+		cache.put("a", null);
+	}
+
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+
+package jorgediazest.util.collection;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Jorge Díaz
+ */
+public class LongLongHashMapTest {
+
+	@Test
+	public void testAdd() {
+		LongLongHashMap map = new LongLongHashMap();
+
+		Assert.assertEquals(5, map.add(1, 5));
+		Assert.assertEquals(8, map.add(1, 3));
+		Assert.assertEquals(-2, map.add(2, -2));
+		Assert.assertEquals(8, map.get(1));
+		Assert.assertEquals(2, map.size());
+	}
+
+	@Test
+	public void testEmpty() {
+		LongLongHashMap map = new LongLongHashMap();
+
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertFalse(map.containsKey(0));
+		Assert.assertEquals(0, map.get(0));
+		Assert.assertEquals(-1, map.get(0, -1));
+		Assert.assertEquals(0, map.keys().length);
+		Assert.assertEquals("{}", map.toString());
+	}
+
+	@Test
+	public void testGrowKeepsEntries() {
+		LongLongHashMap map = new LongLongHashMap(1);
+
+		for (long key = 0; key < 10000; key++) {
+			map.put(key * 1024, key);
+		}
+
+		Assert.assertEquals(10000, map.size());
+
+		for (long key = 0; key < 10000; key++) {
+			Assert.assertEquals(key, map.get(key * 1024, -1));
+		}
+
+		Assert.assertFalse(map.containsKey(1));
+	}
+
+	@Test
+	public void testPut() {
+		LongLongHashMap map = new LongLongHashMap();
+
+		Assert.assertEquals(0, map.put(Long.MIN_VALUE, 1));
+		Assert.assertEquals(0, map.put(0, 2));
+		Assert.assertEquals(0, map.put(Long.MAX_VALUE, 3));
+		Assert.assertEquals(2, map.put(0, 4));
+
+		Assert.assertFalse(map.isEmpty());
+		Assert.assertEquals(3, map.size());
+		Assert.assertTrue(map.containsKey(0));
+		Assert.assertEquals(1, map.get(Long.MIN_VALUE));
+		Assert.assertEquals(4, map.get(0));
+		Assert.assertEquals(3, map.get(Long.MAX_VALUE));
+
+		long[] keys = map.keys();
+
+		Arrays.sort(keys);
+
+		Assert.assertArrayEquals(
+			new long[] {Long.MIN_VALUE, 0, Long.MAX_VALUE}, keys);
+		Assert.assertEquals(
+			"{" + Long.MIN_VALUE + "=1, 0=4, " + Long.MAX_VALUE + "=3}",
+			map.toString());
+	}
+
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+
+package jorgediazest.util.model;
+
+import java.math.BigDecimal;
+
+import java.sql.Timestamp;
+
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Jorge Díaz
+ */
+public class ColumnarResultSetTest {
+
+	@Test
+	public void testAddRowWithOffset() {
+		ColumnarResultSet columnarResultSet = new ColumnarResultSet(
+			new String[] {"name"}, new Class<?>[] {String.class});
+
+		columnarResultSet.addRow(new Object[] {1L, 2L, "a"}, 2);
+
+		Assert.assertEquals(1, columnarResultSet.size());
+		Assert.assertEquals("a", columnarResultSet.getString(0, 0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddShortRow() {
+		ColumnarResultSet columnarResultSet = new ColumnarResultSet(
+			new String[] {"id", "name"},
+			new Class<?>[] {Long.class, String.class});
+
+		columnarResultSet.addRow(new Object[] {1L});
+	}
+
+	@Test
+	public void testAddSingleValueRows() {
+		ColumnarResultSet columnarResultSet = new ColumnarResultSet(
+			new String[] {"id"}, new Class<?>[] {Long.class});
+
+		for (long i = 0; i < 100; i++) {
+			columnarResultSet.addRow(i);
+		}
+
+		columnarResultSet.trimToSize();
+
+		long[] ids = columnarResultSet.getLongColumn(0);
+
+		Assert.assertEquals(100, ids.length);
+		Assert.assertEquals(99, ids[99]);
+	}
+
+	@Test
+	public void testGetColumnType() {
+		Assert.assertEquals(
+			ColumnarResultSet.TYPE_LONG,
+			ColumnarResultSet.getColumnType(long.class));
+		Assert.assertEquals(
+			ColumnarResultSet.TYPE_INT,
+			ColumnarResultSet.getColumnType(Short.class));
+		Assert.assertEquals(
+			ColumnarResultSet.TYPE_DOUBLE,
+			ColumnarResultSet.getColumnType(BigDecimal.class));
+		Assert.assertEquals(
+			ColumnarResultSet.TYPE_DATE,
+			ColumnarResultSet.getColumnType(Timestamp.class));
+		Assert.assertEquals(
+			ColumnarResultSet.TYPE_OBJECT,
+			ColumnarResultSet.getColumnType(null));
+	}
+
+	@Test
+	public void testNullValues() {
+		ColumnarResultSet columnarResultSet = createColumnarResultSet();
+
+		columnarResultSet.addRow(
+			new Object[] {null, null, null, null, null, null, null});
+
+		for (int column = 0; column < 7; column++) {
+			Assert.assertTrue(columnarResultSet.isNull(column, 0));
+			Assert.assertNull(columnarResultSet.getValue(column, 0));
+		}
+
+		Assert.assertNull(columnarResultSet.getString(5, 0));
+		Assert.assertArrayEquals(
+			new int[] {-1}, columnarResultSet.getStringCodes(5));
+		Assert.assertEquals(0, columnarResultSet.getLong(0, 0));
+	}
+
+	@Test
+	public void testTypedGetters() {
+		ColumnarResultSet columnarResultSet = createColumnarResultSet();
+
+		Date date = new Date(1500000000123L);
+
+		columnarResultSet.addRow(
+			new Object[] {1L, 2, 3.5D, true, date, "a", this});
+		columnarResultSet.addRow(
+			new Object[] {4L, 5, 6.5D, false, date, "b", null});
+		columnarResultSet.addRow(
+			new Object[] {7L, 8, 9.5D, 1, 1500000000124L, "a", null});
+
+		Assert.assertEquals(3, columnarResultSet.size());
+		Assert.assertEquals(7, columnarResultSet.getColumnCount());
+		Assert.assertEquals(4, columnarResultSet.getColumnIndex("date"));
+		Assert.assertEquals(-1, columnarResultSet.getColumnIndex("unknown"));
+
+		Assert.assertEquals(4, columnarResultSet.getLong(0, 1));
+		Assert.assertEquals(8, columnarResultSet.getInt(1, 2));
+		Assert.assertEquals(3.5, columnarResultSet.getDouble(2, 0), 0);
+		Assert.assertFalse(columnarResultSet.getBoolean(3, 1));
+		Assert.assertTrue(columnarResultSet.getBoolean(3, 2));
+		Assert.assertEquals(1500000000123L, columnarResultSet.getLong(4, 0));
+		Assert.assertEquals(date, columnarResultSet.getValue(4, 1));
+		Assert.assertEquals(
+			new Date(1500000000124L), columnarResultSet.getValue(4, 2));
+		Assert.assertEquals("b", columnarResultSet.getString(5, 1));
+		Assert.assertSame(this, columnarResultSet.getValue(6, 0));
+
+		Assert.assertArrayEquals(
+			new long[] {1L, 4L, 7L}, columnarResultSet.getLongColumn(0));
+		Assert.assertArrayEquals(
+			new int[] {2, 5, 8}, columnarResultSet.getIntColumn(1));
+		Assert.assertArrayEquals(
+			new int[] {0, 1, 0}, columnarResultSet.getStringCodes(5));
+		Assert.assertArrayEquals(
+			new String[] {"a", "b"},
+			columnarResultSet.getStringDictionary(5));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testWrongColumnType() {
+		ColumnarResultSet columnarResultSet = createColumnarResultSet();
+
+		columnarResultSet.addRow(
+			new Object[] {1L, 2, 3.5D, true, null, "a", null});
+
+		columnarResultSet.getInt(0, 0);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testWrongRow() {
+		ColumnarResultSet columnarResultSet = createColumnarResultSet();
+
+		columnarResultSet.getLong(0, 0);
+	}
+
+	protected ColumnarResultSet createColumnarResultSet() {
+		return new ColumnarResultSet(
+			new String[] {
+				"id", "count", "price", "active", "date", "name", "data"
+			},
+			new Class<?>[] {
+				Long.class, Integer.class, Double.class, Boolean.class,
+				Date.class, String.class, Object.class
+			});
+	}
+
+}
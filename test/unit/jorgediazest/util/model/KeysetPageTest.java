@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+
+package jorgediazest.util.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Jorge Díaz
+ */
+public class KeysetPageTest {
+
+	@Test
+	public void testEmptyPageKeepsRequestedKey() {
+		Object[] lastKey = {10L};
+
+		KeysetPage page = new KeysetPage(
+			Collections.emptyList(), new String[] {"id"}, lastKey, 2);
+
+		Assert.assertEquals(0, page.size());
+		Assert.assertFalse(page.hasMore());
+		Assert.assertSame(lastKey, page.getLastKey());
+	}
+
+	@Test
+	public void testFullPageHasMore() {
+		List<Object[]> results = Arrays.asList(
+			new Object[] {1L, "a"}, new Object[] {2L, "b"});
+
+		KeysetPage page = new KeysetPage(
+			results, new String[] {"id"}, new Object[] {2L}, 2);
+
+		Assert.assertEquals(2, page.size());
+		Assert.assertEquals(2, page.getPageSize());
+		Assert.assertTrue(page.hasMore());
+		Assert.assertArrayEquals(
+			new String[] {"id"}, page.getKeyAttributes());
+		Assert.assertArrayEquals(new Object[] {2L}, page.getLastKey());
+	}
+
+	@Test
+	public void testGetKeysetKeyOfProjectedRow() throws Exception {
+		ModelImpl model = new ModelImpl(null, "test.Model", null);
+
+		Object[] key = model.getKeysetKey(
+			new String[] {"groupId", "userId"},
+			new Object[] {20L, 30L, "name"});
+
+		Assert.assertArrayEquals(new Object[] {20L, 30L}, key);
+	}
+
+	@Test
+	public void testPartialPageIsLast() {
+		List<Object[]> results = Collections.singletonList(
+			new Object[] {1L, "a"});
+
+		KeysetPage page = new KeysetPage(
+			results, new String[] {"id"}, new Object[] {1L}, 2);
+
+		Assert.assertEquals(1, page.size());
+		Assert.assertFalse(page.hasMore());
+	}
+
+}
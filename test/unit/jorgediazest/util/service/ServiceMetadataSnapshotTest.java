@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+
+package jorgediazest.util.service;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.sql.Types;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import jorgediazest.util.table.TableInfo;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Jorge Díaz
+ */
+public class ServiceMetadataSnapshotTest {
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("ServiceMetadataSnapshotTest", ".bin");
+
+		file.delete();
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void testLoadInvalidFile() throws IOException {
+		OutputStream out = new FileOutputStream(file);
+
+		try {
+			out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+		}
+		finally {
+			out.close();
+		}
+
+		ServiceMetadataSnapshot snapshot = ServiceMetadataSnapshot.load(file);
+
+		Assert.assertEquals(0, snapshot.size());
+	}
+
+	@Test
+	public void testLoadMissingFile() {
+		ServiceMetadataSnapshot snapshot = ServiceMetadataSnapshot.load(file);
+
+		Assert.assertEquals(0, snapshot.size());
+		Assert.assertFalse(snapshot.isDirty());
+	}
+
+	@Test
+	public void testMatches() {
+		ServiceMetadataSnapshot.Entry entry = new ServiceMetadataSnapshot.Entry(
+			CLASS_NAME, null, ServiceMetadataSnapshot.fingerprint(SQL_CREATE),
+			createTableInfo(), Collections.<String, TableInfo>emptyMap());
+
+		Assert.assertTrue(entry.matches(SQL_CREATE));
+		Assert.assertFalse(entry.matches(SQL_CREATE + " "));
+		Assert.assertFalse(entry.matches(null));
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		ServiceMetadataSnapshot snapshot = new ServiceMetadataSnapshot(file);
+
+		Map<String, TableInfo> mappingTableInfos =
+			new HashMap<String, TableInfo>();
+
+		mappingTableInfos.put("Users_Groups", createMappingTableInfo());
+
+		snapshot.put(
+			new ServiceMetadataSnapshot.Entry(
+				CLASS_NAME, CLASS_NAME + "Impl",
+				ServiceMetadataSnapshot.fingerprint(SQL_CREATE),
+				createTableInfo(), mappingTableInfos));
+
+		Assert.assertTrue(snapshot.isDirty());
+
+		snapshot.save();
+
+		Assert.assertFalse(snapshot.isDirty());
+
+		snapshot = ServiceMetadataSnapshot.load(file);
+
+		Assert.assertEquals(1, snapshot.size());
+
+		ServiceMetadataSnapshot.Entry entry = snapshot.get(CLASS_NAME);
+
+		Assert.assertEquals(CLASS_NAME, entry.getClassName());
+		Assert.assertEquals(
+			CLASS_NAME + "Impl", entry.getLiferayModelImplClassName());
+		Assert.assertTrue(entry.matches(SQL_CREATE));
+		Assert.assertEquals(
+			Arrays.asList("Users_Groups"), entry.getMappingTables());
+
+		TableInfo tableInfo = entry.getTableInfo();
+
+		Assert.assertEquals("User_", tableInfo.getName());
+		Assert.assertEquals(SQL_CREATE, tableInfo.getSqlCreate());
+		Assert.assertArrayEquals(
+			new String[] {"userId", "uuid_", "createDate"},
+			tableInfo.getAttributesName());
+		Assert.assertEquals(
+			Types.VARCHAR, tableInfo.getAttributeTypeId("uuid_"));
+		Assert.assertEquals("userId", tableInfo.getPrimaryKeyAttribute());
+		Assert.assertEquals(0, tableInfo.getPrimaryKeyMultiAttribute().length);
+
+		TableInfo mappingTableInfo = entry.getTableInfo("Users_Groups");
+
+		Assert.assertEquals("Users_Groups", mappingTableInfo.getName());
+		Assert.assertEquals(
+			Types.BIGINT, mappingTableInfo.getAttributeTypeId("groupId"));
+		Assert.assertEquals("", mappingTableInfo.getPrimaryKeyAttribute());
+		Assert.assertArrayEquals(
+			new String[] {"groupId", "userId"},
+			mappingTableInfo.getPrimaryKeyMultiAttribute());
+
+		Assert.assertNull(snapshot.get("test.Unknown"));
+	}
+
+	protected TableInfo createMappingTableInfo() {
+		Object[][] attributesArr = {
+			{"groupId", Types.BIGINT}, {"userId", Types.BIGINT}
+		};
+
+		return new TableInfo(
+			"Users_Groups", attributesArr,
+			"create table Users_Groups (groupId LONG not null,userId LONG " +
+				"not null,primary key (groupId, userId))",
+			"", new String[] {"groupId", "userId"});
+	}
+
+	protected TableInfo createTableInfo() {
+		Object[][] attributesArr = {
+			{"userId", Types.BIGINT}, {"uuid_", Types.VARCHAR},
+			{"createDate", Types.TIMESTAMP}
+		};
+
+		return new TableInfo(
+			"User_", attributesArr, SQL_CREATE, "userId", new String[0]);
+	}
+
+	private static final String CLASS_NAME = "test.User";
+
+	private static final String SQL_CREATE =
+		"create table User_ (userId LONG not null primary key,uuid_ " +
+			"VARCHAR(75) null,createDate DATE null)";
+
+	private File file;
+
+}
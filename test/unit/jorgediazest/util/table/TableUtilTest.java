@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2015-present Jorge Díaz All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation; either version 2.1 of the License, or (at your option)
+ * any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License for more
+ * details.
+ */
+
+
+package jorgediazest.util.table;
+
+import java.sql.Types;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Jorge Díaz
+ */
+public class TableUtilTest {
+
+	@Test
+	public void testGetColumnsWithInlinePrimaryKey() {
+		List<TableColumn> columns = TableUtil.getColumns(
+			"User_",
+			"create table User_ (mvccVersion LONG default 0 not null,uuid_ " +
+				"VARCHAR(75) null,userId LONG not null primary key," +
+					"companyId LONG,createDate DATE null,comments TEXT null)");
+
+		Assert.assertEquals(6, columns.size());
+
+		TableColumn mvccVersion = columns.get(0);
+
+		Assert.assertEquals("mvccVersion", mvccVersion.getName());
+		Assert.assertEquals("LONG", mvccVersion.getSqlType());
+		Assert.assertEquals(Types.BIGINT, mvccVersion.getJdbcType());
+		Assert.assertFalse(mvccVersion.isNullable());
+		Assert.assertFalse(mvccVersion.isPrimaryKey());
+
+		TableColumn uuid = columns.get(1);
+
+		Assert.assertEquals("uuid_", uuid.getName());
+		Assert.assertEquals("uuid", uuid.getAttributeName());
+		Assert.assertEquals(Types.VARCHAR, uuid.getJdbcType());
+		Assert.assertEquals(75, uuid.getLength());
+		Assert.assertTrue(uuid.isNullable());
+
+		TableColumn userId = columns.get(2);
+
+		Assert.assertEquals("userId", userId.getName());
+		Assert.assertFalse(userId.isNullable());
+		Assert.assertTrue(userId.isPrimaryKey());
+		Assert.assertFalse(userId.isPrimaryKeyConstraint());
+		Assert.assertEquals(1, userId.getPrimaryKeyPosition());
+
+		TableColumn companyId = columns.get(3);
+
+		Assert.assertEquals(-1, companyId.getLength());
+		Assert.assertTrue(companyId.isNullable());
+		Assert.assertFalse(companyId.isPrimaryKey());
+
+		Assert.assertEquals(Types.TIMESTAMP, columns.get(4).getJdbcType());
+		Assert.assertEquals(Types.CLOB, columns.get(5).getJdbcType());
+	}
+
+	@Test
+	public void testGetColumnsWithPrimaryKeyConstraint() {
+		List<TableColumn> columns = TableUtil.getColumns(
+			"Users_Groups",
+			"create table Users_Groups (companyId LONG not null,groupId " +
+				"LONG not null,userId LONG not null,primary key (userId, " +
+					"groupId))");
+
+		Assert.assertEquals(3, columns.size());
+
+		TableColumn companyId = columns.get(0);
+
+		Assert.assertEquals("companyId", companyId.getName());
+		Assert.assertFalse(companyId.isPrimaryKey());
+		Assert.assertEquals(0, companyId.getPrimaryKeyPosition());
+
+		TableColumn groupId = columns.get(1);
+
+		Assert.assertEquals("groupId", groupId.getName());
+		Assert.assertTrue(groupId.isPrimaryKeyConstraint());
+		Assert.assertEquals(2, groupId.getPrimaryKeyPosition());
+
+		TableColumn userId = columns.get(2);
+
+		Assert.assertEquals("userId", userId.getName());
+		Assert.assertTrue(userId.isPrimaryKeyConstraint());
+		Assert.assertEquals(1, userId.getPrimaryKeyPosition());
+	}
+
+	@Test
+	public void testGetColumnsWithUnknownTableName() {
+		List<TableColumn> columns = TableUtil.getColumns(
+			"Group_", "create table User_ (userId LONG not null primary key)");
+
+		Assert.assertTrue(columns.isEmpty());
+	}
+
+	@Test
+	public void testGetJdbcType() {
+		Assert.assertEquals(Types.BIGINT, TableUtil.getJdbcType("long"));
+		Assert.assertEquals(Types.INTEGER, TableUtil.getJdbcType("INTEGER"));
+		Assert.assertEquals(Types.BOOLEAN, TableUtil.getJdbcType("BOOLEAN"));
+		Assert.assertEquals(Types.BLOB, TableUtil.getJdbcType("SBLOB"));
+		Assert.assertEquals(Types.OTHER, TableUtil.getJdbcType("UNKNOWN"));
+	}
+
+}